@@ -3,9 +3,11 @@ package com.falldetection.backend;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @MapperScan("com.falldetection.backend.mapper")
 @SpringBootApplication(scanBasePackages = {"com"})
+@EnableScheduling
 public class BackendApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,19 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chat.context")
+@Data
+public class ChatContextConfig {
+    /** 发送给模型的历史消息（含摘要和本次提问）的估算token上限 */
+    private Integer maxTokens = 3000;
+
+    /** 早期对话摘要的长度上限（token），从maxTokens中预留 */
+    private Integer summaryMaxTokens = 300;
+
+    /** 最多缓存摘要的会话数 */
+    private Integer summaryCacheSessions = 10000;
+}
@@ -0,0 +1,31 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chat.response-cache")
+@Data
+public class ChatResponseCacheConfig {
+    /** 是否缓存模型回答 */
+    private Boolean enabled = true;
+
+    /** 会话已有的问答轮数不超过该值时才使用缓存，0表示只缓存首轮提问 */
+    private Integer maxContextTurns = 1;
+
+    /** 缓存有效期（秒） */
+    private Long ttlSeconds = 600L;
+
+    /** 最多缓存的回答数，超过后淘汰最久未使用的 */
+    private Integer maxEntries = 1000;
+
+    /** 超过该长度（字符）的回答不缓存 */
+    private Integer maxAnswerChars = 4000;
+
+    /** 命中时每次推送的字符数 */
+    private Integer replayChunkChars = 4;
+
+    /** 命中时两次推送的间隔（毫秒），0表示一次推送完 */
+    private Long replayIntervalMs = 20L;
+}
@@ -0,0 +1,25 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "chat.session")
+@Data
+public class ChatSessionConfig {
+    /** 会话存储：memory为本实例内存，redis为Redis（多实例共享、重启不丢失） */
+    private String store = "memory";
+
+    /** 每个会话最多保留的问答轮数，超过后丢弃最早的 */
+    private Integer maxTurns = 50;
+
+    /** 会话空闲多久（秒）后被清除 */
+    private Long idleTtlSeconds = 1800L;
+
+    /** 最多保留的会话数，超过后淘汰最久未使用的会话（仅memory） */
+    private Integer maxSessions = 10000;
+
+    /** 所有会话问答记录的估算总字节数上限，超过后淘汰最久未使用的会话（仅memory） */
+    private Long maxBytes = 64L * 1024 * 1024;
+}
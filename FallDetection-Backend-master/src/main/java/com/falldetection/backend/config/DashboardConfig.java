@@ -0,0 +1,57 @@
+package com.falldetection.backend.config;
+
+import com.falldetection.backend.dto.UserDTO;
+import com.falldetection.backend.utils.UserHolder;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+@Configuration
+@ConfigurationProperties(prefix = "dashboard")
+@Data
+public class DashboardConfig {
+    /** 并行加载仪表盘各部分的线程数 */
+    private Integer poolSize = 8;
+
+    /** 等待执行的加载任务上限，超过后该部分按缺失返回 */
+    private Integer queueCapacity = 200;
+
+    /** 整个请求的时间预算（毫秒），超时仍未完成的部分按缺失返回 */
+    private Long budgetMs = 500L;
+
+    /** 每个用户的聚合结果缓存时间（毫秒），本实例上的事件变化会立即使其失效 */
+    private Long cacheTtlMs = 3000L;
+
+    /** 最多缓存的用户数 */
+    private Integer cacheMaxUsers = 10000;
+
+    /** 返回的最近事件条数 */
+    private Integer recentSize = 5;
+
+    /**
+     * 仪表盘专用线程池，不占用请求线程和公共线程池
+     * 把当前登录用户带到工作线程，查询和读写分离的主库粘滞都依赖UserHolder
+     */
+    @Bean(name = "dashboardExecutor")
+    public ThreadPoolTaskExecutor dashboardExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("dashboard-");
+        executor.setTaskDecorator(task -> {
+            UserDTO user = UserHolder.getUser();
+            return () -> {
+                UserHolder.saveUser(user);
+                try {
+                    task.run();
+                } finally {
+                    UserHolder.removeUser();
+                }
+            };
+        });
+        return executor;
+    }
+}
@@ -0,0 +1,59 @@
+package com.falldetection.backend.config;
+
+import com.falldetection.backend.service.ReplicaFreshnessGuard;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.annotation.PreDestroy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 配置了datasource.routing.replicas时，用读写分离数据源替换默认的单一数据源
+ * 主库和副本的连接池不是单独的bean，容器关闭时由这里关闭
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "datasource.routing", name = "replicas[0].url")
+public class DataSourceConfig {
+
+    private final List<HikariDataSource> pools = new ArrayList<>();
+
+    @Bean
+    public DataSource dataSource(DataSourceProperties properties, DataSourceRoutingConfig routingConfig,
+                                 ReplicaFreshnessGuard freshnessGuard) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .build();
+        pools.add(primary);
+        List<DataSource> replicas = new ArrayList<>();
+        for (DataSourceRoutingConfig.Replica replica : routingConfig.getReplicas()) {
+            HikariDataSource pool = DataSourceBuilder.create()
+                    .type(HikariDataSource.class)
+                    .driverClassName(replica.getDriverClassName() == null
+                            ? properties.determineDriverClassName()
+                            : replica.getDriverClassName())
+                    .url(replica.getUrl())
+                    .username(replica.getUsername())
+                    .password(replica.getPassword())
+                    .build();
+            pools.add(pool);
+            replicas.add(pool);
+        }
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replicas, freshnessGuard));
+    }
+
+    /**
+     * dataSource由本配置类创建，依赖它的bean都销毁之后才会调用
+     */
+    @PreDestroy
+    public void close() {
+        pools.forEach(HikariDataSource::close);
+        pools.clear();
+    }
+}
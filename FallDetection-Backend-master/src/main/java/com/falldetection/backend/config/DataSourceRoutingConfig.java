@@ -0,0 +1,33 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "datasource.routing")
+@Data
+public class DataSourceRoutingConfig {
+    /** 只读副本，为空时不启用读写分离，所有查询走spring.datasource */
+    private List<Replica> replicas = new ArrayList<>();
+
+    /** 用户写入后多少秒内的只读查询仍走主库，避免读到副本上尚未同步的数据 */
+    private Integer pinSeconds = 5;
+
+    public boolean isEnabled() {
+        return !replicas.isEmpty();
+    }
+
+    @Data
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+
+        /** 为空时与主库相同 */
+        private String driverClassName;
+    }
+}
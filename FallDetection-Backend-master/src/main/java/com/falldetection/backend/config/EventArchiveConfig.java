@@ -0,0 +1,28 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "event.archive")
+@Data
+public class EventArchiveConfig {
+    /** 是否把旧事件从fall_events归档到本地段文件 */
+    private Boolean enabled = false;
+
+    /** 段文件和索引所在目录 */
+    private String dir = "data/archive";
+
+    /** fall_events中保留最近多少天的事件，更早的事件归档 */
+    private Integer hotDays = 180;
+
+    /** 每个压缩块最多包含的事件数，也是稀疏索引的粒度 */
+    private Integer blockSize = 256;
+
+    /** 单个段文件的大小上限（字节），超过后写入新的段；段文件整体内存映射，不能超过2GB */
+    private Long segmentMaxBytes = 1024L * 1024 * 1024;
+
+    /** 归档后从fall_events删除时每条DELETE的行数 */
+    private Integer deleteChunkSize = 1000;
+}
@@ -0,0 +1,19 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "event.coalesce")
+@Data
+public class EventCoalesceConfig {
+    /** 是否把短时间内重复上报的同类事件合并到已有记录 */
+    private Boolean enabled = true;
+
+    /** 距离上一次上报不超过多少秒的同类事件视为重复 */
+    private Integer windowSeconds = 120;
+
+    /** 每个用户保留最近几条事件用于判断重复 */
+    private Integer ringSize = 4;
+}
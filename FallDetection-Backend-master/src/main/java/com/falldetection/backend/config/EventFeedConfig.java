@@ -0,0 +1,16 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "event.feed")
+@Data
+public class EventFeedConfig {
+    /** 每个连接最多积压的消息数，超过后发送resync并断开 */
+    private Integer bufferSize = 256;
+
+    /** 心跳间隔（秒），用于保持连接和发现已断开的客户端 */
+    private Integer heartbeatSeconds = 15;
+}
@@ -0,0 +1,22 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "event.image")
+@Data
+public class EventImageConfig {
+    /** 截图所在目录，imageUrl按最后一段文件名在此目录下查找 */
+    private String dir = "../fall_detection_backend/static/fall_images";
+
+    /** 上传的截图返回的imageUrl前缀，与检测程序保存的截图保持一致 */
+    private String urlPrefix = "/static/fall_images/";
+
+    /** 浏览器缓存截图的时间（秒），截图写入后不会再修改 */
+    private Long cacheMaxAgeSeconds = 86400L;
+
+    /** 上传后超过多久（秒）仍没有被任何事件引用的截图会被清理，需覆盖先上传、再保存事件的间隔 */
+    private Long orphanGraceSeconds = 86400L;
+}
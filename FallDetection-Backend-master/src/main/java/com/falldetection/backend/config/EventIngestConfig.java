@@ -0,0 +1,47 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "event.ingest")
+@Data
+public class EventIngestConfig {
+    /** 写入模式：sync为请求线程直接insert，async为入队后立即返回、由后台批量写入 */
+    private String mode = "sync";
+
+    /** 队列容量，队列满时saveEvent返回失败 */
+    private Integer queueCapacity = 10000;
+
+    /** 入队最长等待时间（毫秒） */
+    private Long offerTimeoutMs = 50L;
+
+    /** 单批最多写入的事件数 */
+    private Integer batchSize = 200;
+
+    /** 一批从第一条入队到写入的最长等待时间（毫秒） */
+    private Long flushIntervalMs = 200L;
+
+    /** 批量写入失败后的重试次数，用完后逐条写入，仍失败的事件转存到parked.log */
+    private Integer maxRetries = 3;
+
+    /** async模式下事件日志所在目录，入队前先写日志，重启后重放未写库的事件 */
+    private String journalDir = "data/ingest";
+
+    /** 事件日志单个段文件的大小上限（字节），超过后滚动 */
+    private Long journalSegmentBytes = 16L * 1024 * 1024;
+
+    /** 每次追加后是否fsync；关闭后吞吐更高，但断电可能丢失最近已确认的事件 */
+    private Boolean journalFsync = true;
+
+    /**
+     * 是否用JDBC批量insert写入一批事件
+     * SQLite驱动批量执行后只返回最后一个自增id，edge配置下关闭，改为同一事务内逐条insert，仍只提交一次
+     */
+    private Boolean jdbcBatch = true;
+
+    public boolean isAsync() {
+        return "async".equalsIgnoreCase(mode);
+    }
+}
@@ -0,0 +1,19 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "event.partition")
+@Data
+public class EventPartitionConfig {
+    /** 是否启用fall_events分区维护，表未分区时任务会自动跳过 */
+    private Boolean enabled = true;
+
+    /** 提前创建未来几个月的分区 */
+    private Integer premakeMonths = 3;
+
+    /** 保留最近几个月的分区，更早的分区整体删除；0表示永久保留 */
+    private Integer retentionMonths = 0;
+}
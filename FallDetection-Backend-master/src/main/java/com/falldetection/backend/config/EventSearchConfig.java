@@ -0,0 +1,25 @@
+package com.falldetection.backend.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "event.search")
+@Data
+public class EventSearchConfig {
+    /** 是否维护问答记录的全文索引 */
+    private Boolean enabled = true;
+
+    /** 索引日志所在目录 */
+    private String dir = "data/search";
+
+    /** 单次搜索最多返回的事件数 */
+    private Integer maxResults = 50;
+
+    /** 启动时日志记录数超过 存活文档数 * compactRatio 时重写日志 */
+    private Integer compactRatio = 2;
+
+    /** 全量构建失败后的重试间隔（秒），每失败一次翻倍，最长1小时 */
+    private Long buildRetrySeconds = 60L;
+}
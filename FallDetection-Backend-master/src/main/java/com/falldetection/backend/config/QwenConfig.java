@@ -22,4 +22,7 @@ public class QwenConfig {
 
     /** 单次生成的最大token数量 */
     private Integer maxTokens;
+
+    /** 是否合并并发的相同请求（模型参数和消息完全相同），共享同一次生成 */
+    private Boolean coalesce = true;
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.falldetection.backend.controller;
+
+import com.falldetection.backend.dto.Result;
+import com.falldetection.backend.service.IDashboardService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/dashboard")
+@CrossOrigin
+@Slf4j
+public class DashboardController {
+
+    @Autowired
+    private IDashboardService dashboardService;
+
+    /**
+     * 仪表盘首屏数据：当前用户、事件计数和最近事件，一次请求返回
+     */
+    @GetMapping
+    public Result getDashboard() {
+        return dashboardService.getDashboard();
+    }
+}
@@ -1,15 +1,37 @@
 package com.falldetection.backend.controller;
 
+import com.falldetection.backend.dto.EventBatchRequest;
+import com.falldetection.backend.dto.EventFeedMessage;
+import com.falldetection.backend.dto.ImageUploadDTO;
 import com.falldetection.backend.dto.Result;
 import com.falldetection.backend.dto.SaveRequest;
+import com.falldetection.backend.service.EventFeedHub;
+import com.falldetection.backend.service.EventImageStore;
 import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.utils.SystemConstant;
+import com.falldetection.backend.utils.UserHolder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/event")
@@ -20,16 +42,81 @@ public class EventController {
     @Autowired
     private IEventService eventService;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EventFeedHub eventFeedHub;
+
+    @Autowired
+    private EventImageStore eventImageStore;
+
     /**
      * 获取跌倒事件列表
+     * 传入cursor参数（首页传空字符串）时使用游标分页，返回nextCursor且不统计total
      */
     @GetMapping("/list")
     public Result getEventList(@RequestParam(defaultValue = "1") Integer page,
-            @RequestParam(defaultValue = "5") Integer size) {
-        log.info("获取事件列表请求: page={}, size={}", page, size);
+            @RequestParam(defaultValue = "5") Integer size,
+            @RequestParam(required = false) String cursor) {
+        log.info("获取事件列表请求: page={}, size={}, cursor={}", page, size, cursor);
+        if (cursor != null) {
+            return eventService.getEventListByCursor(cursor, size);
+        }
         return eventService.getEventList(page, size);
     }
 
+    /**
+     * 按需加载单个事件的问答记录
+     * timestamp为列表中该事件的时间，传入后只查询对应的分区
+     */
+    @GetMapping("/{id}/dialog")
+    public Result getEventDialog(@PathVariable("id") Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp) {
+        return eventService.getEventDialog(id, timestamp);
+    }
+
+    /**
+     * 事件截图，只能访问自己的事件；支持ETag协商缓存和Range请求
+     */
+    @GetMapping("/{id}/image")
+    public void getEventImage(@PathVariable("id") Long id, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        Long userId = UserHolder.getUser().getId();
+        Path file = eventImageStore.resolve(eventService.getEventImageUrl(userId, id));
+        if (file == null) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(), Result.fail("截图不存在"));
+            return;
+        }
+        eventImageStore.write(file, request, response);
+    }
+
+    /**
+     * 上传事件截图（multipart，字段名file），按内容去重保存
+     * 传入eventId时同时把截图关联到该事件。关联失败时不删除文件：相同内容的文件可能同时被其他请求上传并引用，
+     * 没有被引用的文件由EventImageSweepJob定期清理
+     */
+    @PostMapping(value = "/image", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Result uploadImage(@RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) Long eventId) throws IOException {
+        ImageUploadDTO uploaded;
+        try (InputStream in = file.getInputStream()) {
+            uploaded = eventImageStore.store(in);
+        } catch (IllegalArgumentException e) {
+            return Result.fail(e.getMessage());
+        }
+        if (eventId != null) {
+            Result attached = eventService.attachEventImage(eventId, uploaded.getImageUrl());
+            if (!attached.getSuccess()) {
+                return attached;
+            }
+        }
+        return Result.ok(uploaded);
+    }
+
     @PostMapping("/save")
     public Result saveEvent(@RequestBody SaveRequest saveRequest) {
         String sessionId = saveRequest.getSessionId();
@@ -38,13 +125,89 @@ public class EventController {
         return eventService.saveEvent(sessionId, eventType, imageUrl);
     }
 
+    /**
+     * timestamp为列表中该事件的时间，传入后只查询对应的分区
+     */
     @DeleteMapping("/delete/{id}")
-    public Result deleteEvent(@PathVariable("id") Long id) {
-        return eventService.deleteEvent(id);
+    public Result deleteEvent(@PathVariable("id") Long id,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp) {
+        return eventService.deleteEvent(id, timestamp);
+    }
+
+    /**
+     * 批量删除当前用户的事件，按ids或[from, to)时间范围
+     */
+    @PostMapping("/batch/delete")
+    public Result deleteEvents(@RequestBody EventBatchRequest request) {
+        return eventService.deleteEvents(request);
+    }
+
+    /**
+     * 批量修改当前用户事件的类型，按ids或[from, to)时间范围
+     */
+    @PostMapping("/batch/relabel")
+    public Result relabelEvents(@RequestBody EventBatchRequest request) {
+        return eventService.relabelEvents(request);
+    }
+
+    /**
+     * SSE推送当前用户事件的新增、删除和最新计数，替代轮询list/stats
+     * 收到resync时客户端应重新拉取列表并重连
+     */
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<EventFeedMessage>> feed() {
+        Long userId = UserHolder.getUser().getId();
+        log.info("事件推送连接: userId={}", userId);
+        return eventFeedHub.subscribe(userId);
     }
 
     @GetMapping("/stats")
     public Result getEventStats() {
         return eventService.getEventStats();
     }
+
+    /**
+     * 流式导出当前用户的全部事件，format为ndjson或csv
+     */
+    @GetMapping("/export")
+    public void exportEvents(@RequestParam(defaultValue = SystemConstant.EXPORT_FORMAT_NDJSON) String format,
+            HttpServletResponse response) throws IOException {
+        format = format.toLowerCase();
+        if (!SystemConstant.EXPORT_FORMAT_NDJSON.equals(format) && !SystemConstant.EXPORT_FORMAT_CSV.equals(format)) {
+            response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+            objectMapper.writeValue(response.getOutputStream(), Result.fail("format只支持ndjson或csv"));
+            return;
+        }
+        Long userId = UserHolder.getUser().getId();
+        log.info("导出事件请求: userId={}, format={}", userId, format);
+
+        boolean csv = SystemConstant.EXPORT_FORMAT_CSV.equals(format);
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : MediaType.APPLICATION_NDJSON_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"fall_events_" + userId + "." + format + "\"");
+        eventService.exportEvents(userId, format, response.getOutputStream());
+    }
+
+    /**
+     * 按问答内容全文搜索当前用户的事件，结果按相关度排序
+     */
+    @GetMapping("/search")
+    public Result searchEvents(@RequestParam String q,
+            @RequestParam(defaultValue = "20") Integer limit) {
+        return eventService.searchEvents(q, limit);
+    }
+
+    /**
+     * 按小时或按天统计的事件趋势，from/to为ISO格式时间，默认最近30天
+     */
+    @GetMapping("/timeline")
+    public Result getEventTimeline(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "day") String granularity) {
+        return eventService.getEventTimeline(from, to, granularity);
+    }
 }
@@ -0,0 +1,18 @@
+package com.falldetection.backend.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * /api/dashboard 的聚合结果，各部分与单独接口（/api/users/me、/api/event/stats、/api/event/list）返回的data一致
+ */
+@Data
+public class DashboardDTO {
+    private Object user;
+    private Object stats;
+    private Object recent;
+
+    // 超出时间预算或加载失败的部分（user/stats/recent），对应字段为null
+    private List<String> missing;
+}
@@ -0,0 +1,23 @@
+package com.falldetection.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 批量删除/修改类型的请求体，ids与[from, to)时间范围二选一
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventBatchRequest {
+    private List<Long> ids;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    // 只用于批量修改类型
+    private Integer eventType;
+}
@@ -5,7 +5,6 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
-import java.util.List;
 
 @Data
 @AllArgsConstructor
@@ -17,6 +16,11 @@ public class EventDTO {
 
     // 事件类型（0:confirm, 1:false_alarm, 2:emergency）
     private Integer eventType;
-    private List<ChatDialog> dialog;
+
+    // 问答记录，已是JSON数组，原样写入响应，不再解析成List<ChatDialog>后重新序列化
+    private RawJson dialog;
     private String imageUrl;
+
+    // 短时间内重复上报被合并的次数
+    private Integer repeatCount;
 }
\ No newline at end of file
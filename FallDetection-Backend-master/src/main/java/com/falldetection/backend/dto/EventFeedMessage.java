@@ -0,0 +1,54 @@
+package com.falldetection.backend.dto;
+
+import com.falldetection.backend.entity.EventStats;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * /api/event/feed 推送的消息
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class EventFeedMessage {
+    public static final String TYPE_SAVED = "saved";
+    public static final String TYPE_REMOVED = "removed";
+    public static final String TYPE_STATS = "stats";
+    public static final String TYPE_RESYNC = "resync";
+
+    /** 消息类型：saved(新增或修改) | removed(删除) | stats(最新计数) | resync(推送跟不上，需要重新拉取) */
+    private String type;
+
+    /** saved/removed时的事件摘要 */
+    private EventDTO event;
+
+    /** stats时的计数，字段与 /api/event/stats 相同 */
+    private Map<String, Long> stats;
+
+    public static EventFeedMessage saved(EventDTO event) {
+        return new EventFeedMessage(TYPE_SAVED, event, null);
+    }
+
+    public static EventFeedMessage removed(EventDTO event) {
+        return new EventFeedMessage(TYPE_REMOVED, event, null);
+    }
+
+    public static EventFeedMessage stats(EventStats eventStats) {
+        Map<String, Long> stats = new HashMap<>();
+        stats.put("total", eventStats.getTotal());
+        stats.put("confirmed", eventStats.getConfirmed());
+        stats.put("falseAlarm", eventStats.getFalseAlarm());
+        stats.put("emergency", eventStats.getEmergency());
+        return new EventFeedMessage(TYPE_STATS, null, stats);
+    }
+
+    public static EventFeedMessage resync() {
+        return new EventFeedMessage(TYPE_RESYNC, null, null);
+    }
+}
@@ -0,0 +1,22 @@
+package com.falldetection.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventSearchDTO {
+    private Long id;
+    private LocalDateTime timestamp;
+
+    // 事件类型（0:confirm, 1:false_alarm, 2:emergency）
+    private Integer eventType;
+    private String imageUrl;
+
+    // BM25相关度，越大越靠前
+    private Double score;
+}
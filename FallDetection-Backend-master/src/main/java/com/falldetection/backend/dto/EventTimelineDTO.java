@@ -0,0 +1,21 @@
+package com.falldetection.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * /api/event/timeline 返回的单个时间桶，没有事件的时间桶不返回
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventTimelineDTO {
+    private LocalDateTime bucket;
+    private Long total;
+    private Long confirmed;
+    private Long falseAlarm;
+    private Long emergency;
+}
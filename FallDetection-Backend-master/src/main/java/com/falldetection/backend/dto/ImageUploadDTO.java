@@ -0,0 +1,20 @@
+package com.falldetection.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/*
+ * 截图上传结果，文件按内容的SHA-256命名
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ImageUploadDTO {
+    private String imageUrl;
+    private String sha256;
+    private Long size;
+
+    // 相同内容的截图已经存在，没有写入新文件
+    private Boolean deduplicated;
+}
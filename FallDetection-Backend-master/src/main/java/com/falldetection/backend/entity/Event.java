@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.handler.CompressedChatDialogListTypeHandler;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.EqualsAndHashCode;
@@ -17,7 +18,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Data
-@TableName("fall_events")
+@TableName(value = "fall_events", autoResultMap = true)
 @EqualsAndHashCode(callSuper = false)
 @Accessors(chain = true)
 @AllArgsConstructor
@@ -35,9 +36,13 @@ public class Event implements Serializable {
     // 事件类型（0:confirm, 1:false_alarm, 2:emergency）
     private Integer eventType;
 
-    // 记录用户和ai针对此次事件的问答记录
-    private String dialog;
+    // 记录用户和ai针对此次事件的问答记录，以压缩二进制存储
+    @TableField(typeHandler = CompressedChatDialogListTypeHandler.class)
+    private List<ChatDialog> dialog;
 
     // 截图URL
     private String imageUrl;
+
+    // 合并到这条记录的上报次数（包括自身），见EventCoalescer
+    private Integer repeatCount;
 }
\ No newline at end of file
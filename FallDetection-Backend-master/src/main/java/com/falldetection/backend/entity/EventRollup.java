@@ -0,0 +1,43 @@
+package com.falldetection.backend.entity;
+
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * 每个用户按小时/按天汇总的事件计数，主键为 (user_id, granularity, bucket_start)
+ */
+@Data
+@TableName("fall_event_rollup")
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventRollup implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    public static final String GRANULARITY_HOUR = "H";
+    public static final String GRANULARITY_DAY = "D";
+
+    private Long userId;
+
+    // H: 小时, D: 天
+    private String granularity;
+
+    // 时间桶起点（整点或当天0点）
+    private LocalDateTime bucketStart;
+
+    private Long total;
+
+    private Long confirmed;
+
+    private Long falseAlarm;
+
+    private Long emergency;
+}
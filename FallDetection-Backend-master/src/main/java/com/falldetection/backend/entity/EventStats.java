@@ -0,0 +1,39 @@
+package com.falldetection.backend.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.experimental.Accessors;
+
+import java.io.Serializable;
+
+/**
+ * 每个用户的事件计数，随saveEvent/deleteEvent增量维护
+ */
+@Data
+@TableName("fall_event_stats")
+@EqualsAndHashCode(callSuper = false)
+@Accessors(chain = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventStats implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    @TableId(value = "user_id", type = IdType.INPUT)
+    private Long userId;
+
+    private Long total;
+
+    // eventType = 0
+    private Long confirmed;
+
+    // eventType = 1
+    private Long falseAlarm;
+
+    // eventType = 2
+    private Long emergency;
+}
@@ -0,0 +1,228 @@
+package com.falldetection.backend.handler;
+
+import com.falldetection.backend.dto.ChatDialog;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.util.ByteArrayBuilder;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * fall_events.dialog 的压缩二进制编解码
+ * 格式：4字节魔数 "FDZ" + 版本号，其后为deflate压缩的 [条数][question][answer]...，
+ * 字符串以 [长度int, -1表示null][UTF-8字节] 存储。
+ * 不以魔数开头的数据视为旧版JSON文本，交给 ChatDialogListTypeHandler 解析。
+ * 只需要输出JSON时用 toJson，不经过 List<ChatDialog>
+ */
+public class CompressedChatDialogListTypeHandler extends BaseTypeHandler<List<ChatDialog>> {
+    private static final byte[] MAGIC = {'F', 'D', 'Z', 1};
+
+    private static final ChatDialogListTypeHandler LEGACY_HANDLER = new ChatDialogListTypeHandler();
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, List<ChatDialog> parameter, JdbcType jdbcType)
+            throws SQLException {
+        ps.setBytes(i, encode(parameter));
+    }
+
+    @Override
+    public List<ChatDialog> getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return decode(rs.getBytes(columnName));
+    }
+
+    @Override
+    public List<ChatDialog> getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return decode(rs.getBytes(columnIndex));
+    }
+
+    @Override
+    public List<ChatDialog> getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return decode(cs.getBytes(columnIndex));
+    }
+
+    public static byte[] encode(List<ChatDialog> dialogs) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.writeBytes(MAGIC);
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            out.writeInt(dialogs.size());
+            for (ChatDialog dialog : dialogs) {
+                writeString(out, dialog.getQuestion());
+                writeString(out, dialog.getAnswer());
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("压缩dialog失败", e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static List<ChatDialog> decode(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (!isCompressed(data)) {
+            return LEGACY_HANDLER.parse(new String(data, StandardCharsets.UTF_8));
+        }
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(data, MAGIC.length, data.length - MAGIC.length)))) {
+            int size = in.readInt();
+            List<ChatDialog> dialogs = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                dialogs.add(new ChatDialog(readString(in), readString(in)));
+            }
+            return dialogs;
+        } catch (IOException e) {
+            throw new IllegalStateException("解压dialog失败", e);
+        }
+    }
+
+    /**
+     * 把存储的dialog直接转成UTF-8的JSON数组，格式与序列化List<ChatDialog>相同
+     * 压缩格式边解压边写JSON，字符串按UTF-8字节转义写出，不创建ChatDialog和String；
+     * 旧版JSON文本流式校验后原样返回
+     */
+    public static byte[] toJson(byte[] data) {
+        if (data == null || data.length == 0) {
+            return null;
+        }
+        if (!isCompressed(data)) {
+            return isLegacyJsonNull(data) ? null : data;
+        }
+        ByteArrayBuilder out = new ByteArrayBuilder(data.length * 3);
+        try (DataInputStream in = new DataInputStream(new InflaterInputStream(
+                new ByteArrayInputStream(data, MAGIC.length, data.length - MAGIC.length)));
+             JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            int size = in.readInt();
+            byte[] buffer = new byte[256];
+            generator.writeStartArray();
+            for (int i = 0; i < size; i++) {
+                generator.writeStartObject();
+                generator.writeFieldName("question");
+                buffer = copyString(in, generator, buffer);
+                generator.writeFieldName("answer");
+                buffer = copyString(in, generator, buffer);
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("解压dialog失败", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 已解码的dialog（如归档读出的事件）转成UTF-8的JSON数组
+     */
+    public static byte[] toJson(List<ChatDialog> dialogs) {
+        if (dialogs == null) {
+            return null;
+        }
+        ByteArrayBuilder out = new ByteArrayBuilder();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(out)) {
+            generator.writeStartArray();
+            for (ChatDialog dialog : dialogs) {
+                generator.writeStartObject();
+                generator.writeStringField("question", dialog.getQuestion());
+                generator.writeStringField("answer", dialog.getAnswer());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("序列化dialog失败", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 从压缩流读出一个字符串的UTF-8字节，直接作为JSON字符串写出
+     * @return 可复用的缓冲区，长度不够时会换成更大的
+     */
+    private static byte[] copyString(DataInputStream in, JsonGenerator generator, byte[] buffer) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            generator.writeNull();
+            return buffer;
+        }
+        if (buffer.length < length) {
+            buffer = new byte[length];
+        }
+        in.readFully(buffer, 0, length);
+        generator.writeUTF8String(buffer, 0, length);
+        return buffer;
+    }
+
+    /**
+     * 校验旧版JSON文本是对象数组，只做词法扫描，不绑定对象
+     * @return 文本为JSON null时返回true
+     */
+    private static boolean isLegacyJsonNull(byte[] json) {
+        try (JsonParser parser = JSON_FACTORY.createParser(json)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.VALUE_NULL && parser.nextToken() == null) {
+                return true;
+            }
+            if (token != JsonToken.START_ARRAY) {
+                throw new IllegalStateException("dialog不是JSON数组");
+            }
+            while ((token = parser.nextToken()) == JsonToken.START_OBJECT) {
+                parser.skipChildren();
+            }
+            if (token != JsonToken.END_ARRAY || parser.nextToken() != null) {
+                throw new IllegalStateException("dialog不是合法的JSON数组");
+            }
+            return false;
+        } catch (IOException e) {
+            throw new IllegalStateException("dialog不是合法的JSON", e);
+        }
+    }
+
+    public static boolean isCompressed(byte[] data) {
+        if (data.length < MAGIC.length) {
+            return false;
+        }
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (data[i] != MAGIC[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
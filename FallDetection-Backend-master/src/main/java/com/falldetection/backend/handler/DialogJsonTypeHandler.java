@@ -0,0 +1,44 @@
+package com.falldetection.backend.handler;
+
+import com.falldetection.backend.dto.RawJson;
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 把fall_events.dialog直接读成UTF-8的JSON，EventDTO.dialog序列化时按字节原样写入响应
+ * 只用于查询，写入仍然通过 CompressedChatDialogListTypeHandler
+ */
+public class DialogJsonTypeHandler extends BaseTypeHandler<RawJson> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, RawJson parameter, JdbcType jdbcType)
+            throws SQLException {
+        // 按旧版JSON文本写入，读取时能被识别
+        ps.setBytes(i, parameter.getBytes());
+    }
+
+    @Override
+    public RawJson getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return toRawJson(rs.getBytes(columnName));
+    }
+
+    @Override
+    public RawJson getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return toRawJson(rs.getBytes(columnIndex));
+    }
+
+    @Override
+    public RawJson getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return toRawJson(cs.getBytes(columnIndex));
+    }
+
+    private static RawJson toRawJson(byte[] data) {
+        byte[] json = CompressedChatDialogListTypeHandler.toJson(data);
+        return json == null ? null : new RawJson(json);
+    }
+}
@@ -0,0 +1,54 @@
+package com.falldetection.backend.handler.sqlite;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * edge配置（SQLite）下的LocalDateTime读写
+ * SQLite没有时间类型，驱动也不支持getObject(LocalDateTime)，统一以定长文本 "yyyy-MM-dd HH:mm:ss.SSS" 存储，
+ * 字符串顺序与时间顺序一致，范围查询、(timestamp, id) 游标和时间桶都可以直接比较。
+ * 通过 mybatis-plus.type-handlers-package 注册，替换默认的LocalDateTime处理器
+ */
+@MappedTypes(LocalDateTime.class)
+public class SqliteLocalDateTimeTypeHandler extends BaseTypeHandler<LocalDateTime> {
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, LocalDateTime parameter, JdbcType jdbcType)
+            throws SQLException {
+        ps.setString(i, parameter.format(FORMAT));
+    }
+
+    @Override
+    public LocalDateTime getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return parse(rs.getString(columnName));
+    }
+
+    @Override
+    public LocalDateTime getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return parse(rs.getString(columnIndex));
+    }
+
+    @Override
+    public LocalDateTime getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return parse(cs.getString(columnIndex));
+    }
+
+    /**
+     * 兼容不带毫秒的文本（如schema中的默认值、手工导入的数据）
+     */
+    private static LocalDateTime parse(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        return LocalDateTime.parse(value.replace(' ', 'T'));
+    }
+}
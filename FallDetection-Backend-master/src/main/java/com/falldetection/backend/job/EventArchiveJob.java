@@ -0,0 +1,39 @@
+package com.falldetection.backend.job;
+
+import com.falldetection.backend.config.EventArchiveConfig;
+import com.falldetection.backend.service.EventArchiveStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 定期把超过hotDays的事件归档到本地段文件
+ * 归档边界按天对齐，使小时桶和天桶的汇总不会跨越边界
+ */
+@Component
+@Slf4j
+public class EventArchiveJob {
+
+    @Autowired
+    private EventArchiveConfig config;
+
+    @Autowired
+    private EventArchiveStore eventArchiveStore;
+
+    @Scheduled(cron = "${event.archive.cron:0 50 3 * * ?}")
+    public void archive() {
+        if (!config.getEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDate.now().minusDays(config.getHotDays()).atStartOfDay();
+        try {
+            eventArchiveStore.archiveBefore(cutoff);
+        } catch (Exception e) {
+            log.error("事件归档失败. [cutoff={}]", cutoff, e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.falldetection.backend.job;
+
+import com.falldetection.backend.config.EventImageConfig;
+import com.falldetection.backend.mapper.EventMapper;
+import com.falldetection.backend.service.EventArchiveStore;
+import com.falldetection.backend.service.EventImageStore;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * 定期清理没有被任何事件引用的上传截图
+ * 上传的截图按内容命名，可能同时被多个事件引用，关联失败时请求本身不删除文件，统一在这里按fall_events和归档中的
+ * image_url判断；只处理修改时间超过宽限期的文件，期间被再次上传的文件会刷新修改时间
+ */
+@Component
+@Slf4j
+public class EventImageSweepJob {
+
+    @Autowired
+    private EventImageConfig config;
+
+    @Autowired
+    private EventImageStore eventImageStore;
+
+    @Autowired
+    private EventMapper eventMapper;
+
+    @Autowired
+    private EventArchiveStore eventArchiveStore;
+
+    @Scheduled(cron = "${event.image.sweep-cron:0 20 4 * * ?}")
+    public void sweep() {
+        try {
+            sweepOrphans();
+        } catch (Exception e) {
+            log.error("清理未被引用的截图失败", e);
+        }
+    }
+
+    /**
+     * @return 删除的文件数
+     */
+    public int sweepOrphans() throws IOException {
+        Instant before = Instant.now().minusSeconds(config.getOrphanGraceSeconds());
+        Set<Path> candidates = new HashSet<>(eventImageStore.listUploadsModifiedBefore(before));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+        candidates.removeAll(resolve(eventMapper.selectImageUrlsLike(config.getUrlPrefix() + "%")));
+        // 读取归档需要解压全部块，fall_events已经排除所有候选时不再读取
+        if (!candidates.isEmpty() && eventArchiveStore.getWatermark() != null) {
+            candidates.removeAll(resolve(eventArchiveStore.collectImageUrls()));
+        }
+        int deleted = 0;
+        for (Path file : candidates) {
+            if (eventImageStore.deleteIfModifiedBefore(file, before)) {
+                deleted++;
+            }
+        }
+        if (deleted > 0) {
+            log.info("清理未被引用的截图. [deleted={}]", deleted);
+        }
+        return deleted;
+    }
+
+    private Set<Path> resolve(Collection<String> imageUrls) {
+        Set<Path> files = new HashSet<>();
+        imageUrls.stream().map(eventImageStore::resolve).filter(Objects::nonNull).forEach(files::add);
+        return files;
+    }
+}
@@ -0,0 +1,149 @@
+package com.falldetection.backend.job;
+
+import com.falldetection.backend.config.EventPartitionConfig;
+import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.service.IEventStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * fall_events按月RANGE分区的维护任务
+ * 分区命名为 pYYYYMM，存放该月的事件；p_future 为 MAXVALUE 兜底分区。
+ * 每天提前创建未来几个月的分区，并按保留期整体删除过期分区（代替逐行DELETE）
+ */
+@Component
+@Slf4j
+public class EventPartitionMaintenanceJob {
+    private static final String TABLE_NAME = "fall_events";
+    private static final String FUTURE_PARTITION = "p_future";
+    private static final DateTimeFormatter PARTITION_NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    @Autowired
+    private EventPartitionConfig config;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private IEventStatsService eventStatsService;
+
+    @Autowired
+    private IEventService eventService;
+
+    @Scheduled(cron = "${event.partition.maintenance-cron:0 10 2 * * ?}")
+    public void maintain() {
+        if (!config.getEnabled()) {
+            return;
+        }
+        try {
+            Map<String, String> partitions = loadPartitions();
+            if (!partitions.containsKey(FUTURE_PARTITION)) {
+                log.warn("{}未按月分区，跳过分区维护", TABLE_NAME);
+                return;
+            }
+            createFuturePartitions(partitions);
+            dropExpiredPartitions(partitions);
+        } catch (Exception e) {
+            log.error("{}分区维护失败", TABLE_NAME, e);
+        }
+    }
+
+    /**
+     * @return 分区名 -> 分区上界描述，按分区顺序
+     */
+    private Map<String, String> loadPartitions() {
+        List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                "SELECT PARTITION_NAME, PARTITION_DESCRIPTION FROM information_schema.PARTITIONS " +
+                        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL " +
+                        "ORDER BY PARTITION_ORDINAL_POSITION", TABLE_NAME);
+        Map<String, String> partitions = new LinkedHashMap<>();
+        for (Map<String, Object> row : rows) {
+            partitions.put(String.valueOf(row.get("PARTITION_NAME")), String.valueOf(row.get("PARTITION_DESCRIPTION")));
+        }
+        return partitions;
+    }
+
+    private void createFuturePartitions(Map<String, String> partitions) {
+        // 从已有的最后一个月份分区之后开始补齐，保证中间不会缺月份
+        YearMonth last = null;
+        for (String name : partitions.keySet()) {
+            YearMonth month = parseMonth(name);
+            if (month != null && (last == null || month.isAfter(last))) {
+                last = month;
+            }
+        }
+        YearMonth end = YearMonth.now().plusMonths(config.getPremakeMonths());
+        YearMonth month = last == null ? YearMonth.now() : last.plusMonths(1);
+        for (; !month.isAfter(end); month = month.plusMonths(1)) {
+            String name = month.format(PARTITION_NAME_FORMAT);
+            // 从p_future中拆出新月份，p_future为空时只涉及元数据
+            jdbcTemplate.execute("ALTER TABLE " + TABLE_NAME + " REORGANIZE PARTITION " + FUTURE_PARTITION + " INTO (" +
+                    "PARTITION " + name + " VALUES LESS THAN ('" + month.plusMonths(1).atDay(1) + " 00:00:00'), " +
+                    "PARTITION " + FUTURE_PARTITION + " VALUES LESS THAN (MAXVALUE))");
+            log.info("创建分区 {}.{}", TABLE_NAME, name);
+        }
+    }
+
+    private void dropExpiredPartitions(Map<String, String> partitions) {
+        if (config.getRetentionMonths() <= 0) {
+            return;
+        }
+        LocalDate cutoff = YearMonth.now().minusMonths(config.getRetentionMonths()).atDay(1);
+        int dropped = 0;
+        List<Event> removed = new ArrayList<>();
+        for (String name : partitions.keySet()) {
+            YearMonth month = parseMonth(name);
+            if (month != null && !month.plusMonths(1).atDay(1).isAfter(cutoff)) {
+                // 过期月份不会再写入，先记下分区中的事件，删除后用于清理缓存、索引和推送
+                List<Event> events = selectPartitionSummaries(name);
+                jdbcTemplate.execute("ALTER TABLE " + TABLE_NAME + " DROP PARTITION " + name);
+                removed.addAll(events);
+                dropped++;
+                log.info("删除过期分区 {}.{} [events={}]", TABLE_NAME, name, events.size());
+            }
+        }
+        if (dropped > 0) {
+            // 整个分区被删除，不经过deleteEvent，需重建计数和汇总，并同步其它派生数据
+            eventStatsService.rebuildAll();
+            eventService.onEventsPurged(removed);
+        }
+    }
+
+    private List<Event> selectPartitionSummaries(String partitionName) {
+        return jdbcTemplate.query("SELECT id, user_id, timestamp, event_type, image_url, repeat_count FROM "
+                + TABLE_NAME + " PARTITION (" + partitionName + ")", (rs, rowNum) -> {
+            Timestamp timestamp = rs.getTimestamp("timestamp");
+            return new Event()
+                    .setId(rs.getLong("id"))
+                    .setUserId(rs.getObject("user_id", Long.class))
+                    .setTimestamp(timestamp == null ? null : timestamp.toLocalDateTime())
+                    .setEventType(rs.getObject("event_type", Integer.class))
+                    .setImageUrl(rs.getString("image_url"))
+                    .setRepeatCount(rs.getObject("repeat_count", Integer.class));
+        });
+    }
+
+    /**
+     * @return pYYYYMM分区对应的月份，其他分区（p_history、p_future）返回null
+     */
+    private static YearMonth parseMonth(String partitionName) {
+        try {
+            return YearMonth.parse(partitionName, PARTITION_NAME_FORMAT);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
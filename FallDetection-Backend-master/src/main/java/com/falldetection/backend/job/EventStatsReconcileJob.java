@@ -0,0 +1,27 @@
+package com.falldetection.backend.job;
+
+import com.falldetection.backend.service.IEventStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * 定期从fall_events重建fall_event_stats，修正增量维护可能产生的偏差
+ */
+@Component
+@Slf4j
+public class EventStatsReconcileJob {
+
+    @Autowired
+    private IEventStatsService eventStatsService;
+
+    @Scheduled(cron = "${event.stats.reconcile-cron:0 30 3 * * ?}")
+    public void reconcile() {
+        try {
+            eventStatsService.rebuildAll();
+        } catch (Exception e) {
+            log.error("事件计数重建失败", e);
+        }
+    }
+}
@@ -1,8 +1,122 @@
 package com.falldetection.backend.mapper;
 
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.baomidou.mybatisplus.core.toolkit.Constants;
+import com.falldetection.backend.dto.EventDTO;
 import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.handler.CompressedChatDialogListTypeHandler;
+import com.falldetection.backend.handler.DialogJsonTypeHandler;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Result;
+import org.apache.ibatis.annotations.Results;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 
 public interface EventMapper extends BaseMapper<Event> {
+
+    /**
+     * 流式读取用户的全部事件（新到旧），需在事务内遍历
+     * MySQL下fetchSize为Integer.MIN_VALUE，驱动逐行读取结果集，不需要在连接串上开启useCursorFetch；
+     * 遍历结束前同一连接不能执行其它语句。SQLite本身按需逐步取行
+     * @param since 不为null时只读取不早于since的事件，更早的事件已归档
+     */
+    @Select("<script>" +
+            "SELECT id, user_id, timestamp, event_type, dialog, image_url, repeat_count FROM fall_events " +
+            "WHERE user_id = #{userId}" +
+            "<if test='since != null'> AND timestamp &gt;= #{since}</if> " +
+            "ORDER BY timestamp DESC, id DESC" +
+            "</script>")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @Options(fetchSize = 500, resultSetType = ResultSetType.FORWARD_ONLY, databaseId = "sqlite")
+    @Results(id = "eventStreamMap", value = {
+            @Result(column = "dialog", property = "dialog", typeHandler = CompressedChatDialogListTypeHandler.class)
+    })
+    Cursor<Event> streamByUser(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+
+    /**
+     * 与streamByUser相同，但dialog直接读成JSON文本（见DialogJsonTypeHandler），供导出原样输出
+     */
+    @Select("<script>" +
+            "SELECT id, user_id, timestamp, event_type, dialog, image_url, repeat_count FROM fall_events " +
+            "WHERE user_id = #{userId}" +
+            "<if test='since != null'> AND timestamp &gt;= #{since}</if> " +
+            "ORDER BY timestamp DESC, id DESC" +
+            "</script>")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @Options(fetchSize = 500, resultSetType = ResultSetType.FORWARD_ONLY, databaseId = "sqlite")
+    @Results(id = "eventJsonMap", value = {
+            @Result(column = "dialog", property = "dialog", typeHandler = DialogJsonTypeHandler.class)
+    })
+    Cursor<EventDTO> streamJsonByUser(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+
+    /**
+     * 读取单个事件的dialog JSON文本，按id和user_id一起查询
+     * @param timestamp 不为null时一起作为条件，只查询该时间所在的分区
+     */
+    @Select("<script>" +
+            "SELECT id, dialog FROM fall_events WHERE id = #{id} AND user_id = #{userId}" +
+            "<if test='timestamp != null'> AND timestamp = #{timestamp}</if>" +
+            "</script>")
+    @ResultMap("eventJsonMap")
+    EventDTO selectDialogJson(@Param("id") Long id, @Param("userId") Long userId,
+                              @Param("timestamp") LocalDateTime timestamp);
+
+    /**
+     * 流式读取用户早于before的事件（新到旧），供归档任务使用，需在事务内遍历
+     */
+    @Select("SELECT id, user_id, timestamp, event_type, dialog, image_url, repeat_count FROM fall_events " +
+            "WHERE user_id = #{userId} AND timestamp < #{before} ORDER BY timestamp DESC, id DESC")
+    @Options(fetchSize = Integer.MIN_VALUE, resultSetType = ResultSetType.FORWARD_ONLY)
+    @Options(fetchSize = 500, resultSetType = ResultSetType.FORWARD_ONLY, databaseId = "sqlite")
+    @ResultMap("eventStreamMap")
+    Cursor<Event> streamByUserBefore(@Param("userId") Long userId, @Param("before") LocalDateTime before);
+
+    @Select("SELECT DISTINCT user_id FROM fall_events WHERE timestamp < #{before} AND user_id IS NOT NULL")
+    List<Long> selectUserIdsBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * 以pattern匹配（LIKE）的全部截图URL，供清理未被引用的上传截图使用
+     */
+    @Select("SELECT DISTINCT image_url FROM fall_events WHERE image_url LIKE #{pattern}")
+    List<String> selectImageUrlsLike(@Param("pattern") String pattern);
+
+    /**
+     * 删除早于before的事件，每次最多limit行
+     */
+    @Delete("DELETE FROM fall_events WHERE timestamp < #{before} LIMIT #{limit}")
+    @Delete(value = "DELETE FROM fall_events WHERE id IN " +
+            "(SELECT id FROM fall_events WHERE timestamp < #{before} LIMIT #{limit})", databaseId = "sqlite")
+    int deleteBefore(@Param("before") LocalDateTime before, @Param("limit") Integer limit);
+
+    /**
+     * 锁定并读出批量修改的一块事件，过滤条件和排序由wrapper给出
+     * SQLite没有行锁，edge配置下事务以BEGIN IMMEDIATE开始，已持有写锁
+     */
+    @Select("SELECT id, user_id, timestamp, event_type FROM fall_events ${ew.customSqlSegment} LIMIT #{limit} FOR UPDATE")
+    @Select(value = "SELECT id, user_id, timestamp, event_type FROM fall_events ${ew.customSqlSegment} LIMIT #{limit}",
+            databaseId = "sqlite")
+    List<Event> selectChunkForUpdate(@Param(Constants.WRAPPER) Wrapper<Event> wrapper, @Param("limit") int limit);
+
+    /**
+     * 锁定并读出合并目标的问答记录，追加后写回前其他合并不能读到旧值
+     * SQLite同上，事务开始时已持有写锁
+     */
+    @Select("SELECT id, dialog FROM fall_events WHERE id = #{id} AND user_id = #{userId} AND timestamp = #{timestamp} " +
+            "FOR UPDATE")
+    @Select(value = "SELECT id, dialog FROM fall_events WHERE id = #{id} AND user_id = #{userId} AND timestamp = #{timestamp}",
+            databaseId = "sqlite")
+    @Results({
+            @Result(column = "dialog", property = "dialog", typeHandler = CompressedChatDialogListTypeHandler.class)
+    })
+    Event selectDialogForUpdate(@Param("id") Long id, @Param("userId") Long userId,
+                                @Param("timestamp") LocalDateTime timestamp);
 }
@@ -0,0 +1,95 @@
+package com.falldetection.backend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.falldetection.backend.dto.EventTimelineDTO;
+import com.falldetection.backend.entity.EventRollup;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface EventRollupMapper extends BaseMapper<EventRollup> {
+
+    /**
+     * 批量累加各时间桶的增量，不存在的时间桶直接插入
+     */
+    @Insert("<script>" +
+            "INSERT INTO fall_event_rollup (user_id, granularity, bucket_start, total, confirmed, false_alarm, emergency) VALUES " +
+            "<foreach collection='deltas' item='d' separator=','>" +
+            "(#{d.userId}, #{d.granularity}, #{d.bucketStart}, #{d.total}, #{d.confirmed}, #{d.falseAlarm}, #{d.emergency})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE total = total + VALUES(total), confirmed = confirmed + VALUES(confirmed), " +
+            "false_alarm = false_alarm + VALUES(false_alarm), emergency = emergency + VALUES(emergency)" +
+            "</script>")
+    @Insert(value = "<script>" +
+            "INSERT INTO fall_event_rollup (user_id, granularity, bucket_start, total, confirmed, false_alarm, emergency) VALUES " +
+            "<foreach collection='deltas' item='d' separator=','>" +
+            "(#{d.userId}, #{d.granularity}, #{d.bucketStart}, #{d.total}, #{d.confirmed}, #{d.falseAlarm}, #{d.emergency})" +
+            "</foreach> " +
+            "ON CONFLICT (user_id, granularity, bucket_start) DO UPDATE SET total = total + excluded.total, " +
+            "confirmed = confirmed + excluded.confirmed, false_alarm = false_alarm + excluded.false_alarm, " +
+            "emergency = emergency + excluded.emergency" +
+            "</script>", databaseId = "sqlite")
+    int addDeltas(@Param("deltas") Collection<EventRollup> deltas);
+
+    @Select("SELECT bucket_start AS bucket, total, confirmed, false_alarm, emergency FROM fall_event_rollup " +
+            "WHERE user_id = #{userId} AND granularity = #{granularity} " +
+            "AND bucket_start >= #{from} AND bucket_start < #{to} AND total <> 0 " +
+            "ORDER BY bucket_start")
+    List<EventTimelineDTO> selectTimeline(@Param("userId") Long userId, @Param("granularity") String granularity,
+                                          @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    /**
+     * @param since 不为null时只删除不早于since的时间桶，更早的时间桶对应已归档的事件
+     */
+    @Delete("<script>" +
+            "DELETE FROM fall_event_rollup WHERE user_id = #{userId}" +
+            "<if test='since != null'> AND bucket_start &gt;= #{since}</if>" +
+            "</script>")
+    int deleteByUser(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+
+    @Delete("<script>" +
+            "DELETE FROM fall_event_rollup WHERE NOT EXISTS " +
+            "(SELECT 1 FROM fall_events e WHERE e.user_id = fall_event_rollup.user_id)" +
+            "<if test='since != null'> AND bucket_start &gt;= #{since}</if>" +
+            "</script>")
+    int deleteOrphans(@Param("since") LocalDateTime since);
+
+    /**
+     * 从fall_events重新汇总单个用户不早于since的小时桶和天桶，since为null时汇总全部
+     * SQLite下时间桶按SqliteLocalDateTimeTypeHandler的文本格式生成，与增量写入的bucket_start一致
+     */
+    @Insert("<script>" +
+            "INSERT INTO fall_event_rollup (user_id, granularity, bucket_start, total, confirmed, false_alarm, emergency) " +
+            "SELECT user_id, 'H', DATE_FORMAT(timestamp, '%Y-%m-%d %H:00:00'), COUNT(*), " +
+            "COALESCE(SUM(event_type = 0), 0), COALESCE(SUM(event_type = 1), 0), COALESCE(SUM(event_type = 2), 0) " +
+            "FROM fall_events WHERE user_id = #{userId} AND timestamp IS NOT NULL" +
+            "<if test='since != null'> AND timestamp &gt;= #{since}</if> " +
+            "GROUP BY user_id, DATE_FORMAT(timestamp, '%Y-%m-%d %H:00:00') " +
+            "UNION ALL " +
+            "SELECT user_id, 'D', DATE(timestamp), COUNT(*), " +
+            "COALESCE(SUM(event_type = 0), 0), COALESCE(SUM(event_type = 1), 0), COALESCE(SUM(event_type = 2), 0) " +
+            "FROM fall_events WHERE user_id = #{userId} AND timestamp IS NOT NULL" +
+            "<if test='since != null'> AND timestamp &gt;= #{since}</if> " +
+            "GROUP BY user_id, DATE(timestamp)" +
+            "</script>")
+    @Insert(value = "<script>" +
+            "INSERT INTO fall_event_rollup (user_id, granularity, bucket_start, total, confirmed, false_alarm, emergency) " +
+            "SELECT user_id, 'H', strftime('%Y-%m-%d %H:00:00.000', timestamp), COUNT(*), " +
+            "COALESCE(SUM(event_type = 0), 0), COALESCE(SUM(event_type = 1), 0), COALESCE(SUM(event_type = 2), 0) " +
+            "FROM fall_events WHERE user_id = #{userId} AND timestamp IS NOT NULL" +
+            "<if test='since != null'> AND timestamp &gt;= #{since}</if> " +
+            "GROUP BY user_id, strftime('%Y-%m-%d %H:00:00.000', timestamp) " +
+            "UNION ALL " +
+            "SELECT user_id, 'D', date(timestamp) || ' 00:00:00.000', COUNT(*), " +
+            "COALESCE(SUM(event_type = 0), 0), COALESCE(SUM(event_type = 1), 0), COALESCE(SUM(event_type = 2), 0) " +
+            "FROM fall_events WHERE user_id = #{userId} AND timestamp IS NOT NULL" +
+            "<if test='since != null'> AND timestamp &gt;= #{since}</if> " +
+            "GROUP BY user_id, date(timestamp)" +
+            "</script>", databaseId = "sqlite")
+    int rebuildUser(@Param("userId") Long userId, @Param("since") LocalDateTime since);
+}
@@ -0,0 +1,65 @@
+package com.falldetection.backend.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.falldetection.backend.entity.EventStats;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+public interface EventStatsMapper extends BaseMapper<EventStats> {
+
+    /**
+     * 按增量累加计数
+     * @return 影响行数，为0表示该用户还没有计数行
+     */
+    @Update("UPDATE fall_event_stats SET total = total + #{total}, confirmed = confirmed + #{confirmed}, " +
+            "false_alarm = false_alarm + #{falseAlarm}, emergency = emergency + #{emergency} " +
+            "WHERE user_id = #{userId}")
+    int addDelta(EventStats delta);
+
+    /**
+     * 锁住用户的计数行，与addDelta的UPDATE是同一把行锁；SQLite下写事务本身已串行
+     */
+    @Select("SELECT user_id FROM fall_event_stats WHERE user_id = #{userId} FOR UPDATE")
+    @Select(value = "SELECT user_id FROM fall_event_stats WHERE user_id = #{userId}", databaseId = "sqlite")
+    Long lockUser(@Param("userId") Long userId);
+
+    /**
+     * 从fall_events统计单个用户的计数，没有事件时各项为0
+     */
+    @Select("SELECT #{userId} AS user_id, COUNT(*) AS total, " +
+            "COALESCE(SUM(event_type = 0), 0) AS confirmed, " +
+            "COALESCE(SUM(event_type = 1), 0) AS false_alarm, " +
+            "COALESCE(SUM(event_type = 2), 0) AS emergency " +
+            "FROM fall_events WHERE user_id = #{userId}")
+    EventStats countUser(@Param("userId") Long userId);
+
+    /**
+     * 写入计数，已有计数行时整体覆盖
+     */
+    @Insert("INSERT INTO fall_event_stats (user_id, total, confirmed, false_alarm, emergency) " +
+            "VALUES (#{userId}, #{total}, #{confirmed}, #{falseAlarm}, #{emergency}) " +
+            "ON DUPLICATE KEY UPDATE total = #{total}, confirmed = #{confirmed}, " +
+            "false_alarm = #{falseAlarm}, emergency = #{emergency}")
+    @Insert(value = "INSERT INTO fall_event_stats (user_id, total, confirmed, false_alarm, emergency) " +
+            "VALUES (#{userId}, #{total}, #{confirmed}, #{falseAlarm}, #{emergency}) " +
+            "ON CONFLICT (user_id) DO UPDATE SET total = excluded.total, confirmed = excluded.confirmed, " +
+            "false_alarm = excluded.false_alarm, emergency = excluded.emergency", databaseId = "sqlite")
+    int replace(EventStats stats);
+
+    @Select("SELECT DISTINCT user_id FROM fall_events WHERE user_id IS NOT NULL")
+    List<Long> selectEventUserIds();
+
+    /**
+     * 清零已经没有任何事件的用户
+     */
+    @Update("UPDATE fall_event_stats s SET total = 0, confirmed = 0, false_alarm = 0, emergency = 0 " +
+            "WHERE s.total <> 0 AND NOT EXISTS (SELECT 1 FROM fall_events e WHERE e.user_id = s.user_id)")
+    @Update(value = "UPDATE fall_event_stats SET total = 0, confirmed = 0, false_alarm = 0, emergency = 0 " +
+            "WHERE total <> 0 AND NOT EXISTS " +
+            "(SELECT 1 FROM fall_events e WHERE e.user_id = fall_event_stats.user_id)", databaseId = "sqlite")
+    int resetOrphans();
+}
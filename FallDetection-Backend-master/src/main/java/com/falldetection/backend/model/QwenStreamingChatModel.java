@@ -3,13 +3,28 @@ package com.falldetection.backend.model;
 import com.falldetection.backend.config.QwenConfig;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.model.StreamingResponseHandler;
 import dev.langchain4j.model.openai.OpenAiStreamingChatModel;
 import dev.langchain4j.model.output.Response;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Flux;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 @Component
 public class QwenStreamingChatModel {
@@ -20,12 +35,23 @@ public class QwenStreamingChatModel {
     /** LangChain4j的流式聊天模型实例 */
     private final OpenAiStreamingChatModel streamingChatModel;
 
+    /** 正在进行的生成，key为模型参数和消息列表的哈希，生成结束后移除 */
+    private final Map<String, Flux<String>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter upstreamCounter;
+    private final Counter coalescedCounter;
+
     /**
      * 构造函数，初始化流式聊天模型
      * @param qwenConfig Qwen配置
      */
-    public QwenStreamingChatModel(QwenConfig qwenConfig) {
+    public QwenStreamingChatModel(QwenConfig qwenConfig, MeterRegistry meterRegistry) {
         this.qwenConfig = qwenConfig;
+        this.upstreamCounter = meterRegistry.counter("chat.model.requests", "result", "upstream");
+        this.coalescedCounter = meterRegistry.counter("chat.model.requests", "result", "coalesced");
+        Gauge.builder("chat.model.inflight", inFlight, Map::size)
+                .description("正在进行的模型生成数")
+                .register(meterRegistry);
         // 使用Builder模式构建OpenAI兼容的流式聊天模型
         this.streamingChatModel = OpenAiStreamingChatModel.builder()
                 .apiKey(qwenConfig.getApiKey())              // 设置API密钥
@@ -42,8 +68,8 @@ public class QwenStreamingChatModel {
      * @return Flux<String> 流式返回的文本流
      */
     public Flux<String> streamChat(String message) {
-        // 创建Flux流，用于处理异步流式数据
-        return Flux.create(sink -> {
+        // generate(String)等价于只有一条用户消息的generate(List)，两者使用同一个key
+        return coalesce(List.of(UserMessage.from(message)), () -> Flux.create(sink -> {
             try {
                 // 调用LangChain4j的流式生成方法，使用单个消息
                 streamingChatModel.generate(
@@ -82,7 +108,7 @@ public class QwenStreamingChatModel {
                 // 捕获同步异常并传递给下游
                 sink.error(e);
             }
-        });
+        }));
     }
 
     /**
@@ -91,7 +117,7 @@ public class QwenStreamingChatModel {
      * @return Flux<String> 流式返回的文本流
      */
     public Flux<String> streamChatWithHistory(List<ChatMessage> messages) {
-        return Flux.create(sink -> {
+        return coalesce(messages, () -> Flux.create(sink -> {
             try {
                 // 使用消息列表进行多轮对话生成
                 streamingChatModel.generate(
@@ -128,6 +154,83 @@ public class QwenStreamingChatModel {
             } catch (Exception e) {
                 sink.error(e);
             }
+        }));
+    }
+
+    /**
+     * 合并并发的相同请求：同一时刻相同模型参数和消息列表只向上游发起一次生成
+     * 后加入的订阅者先收到已经生成的token，再继续接收后续token；单个订阅者取消不影响其他订阅者，
+     * 全部订阅者都取消后才取消上游。生成结束（完成、出错或全部取消）时先移除再把结束信号传给订阅者，
+     * 订阅者在结束回调里再次发起相同请求会重新生成，而不是拿到已结束的结果。
+     * 上游请求数在实际订阅上游时计数，已取出但在结束后才订阅的共享流会重新连接上游，也计入上游请求数
+     */
+    private Flux<String> coalesce(List<ChatMessage> messages, Supplier<Flux<String>> source) {
+        if (!Boolean.TRUE.equals(qwenConfig.getCoalesce())) {
+            upstreamCounter.increment();
+            return source.get();
+        }
+        return Flux.defer(() -> {
+            String key = key(messages);
+            AtomicReference<Flux<String>> created = new AtomicReference<>();
+            Flux<String> shared = inFlight.computeIfAbsent(key, k -> {
+                // doFinally在结束信号传给订阅者之后才执行，这里用doOnTerminate和doOnCancel在传递之前移除
+                Flux<String> flux = Flux.defer(source)
+                        .doOnSubscribe(subscription -> upstreamCounter.increment())
+                        .doOnTerminate(() -> inFlight.remove(k, created.get()))
+                        .doOnCancel(() -> inFlight.remove(k, created.get()))
+                        .replay()
+                        .refCount();
+                created.set(flux);
+                return flux;
+            });
+            if (shared != created.get()) {
+                coalescedCounter.increment();
+            }
+            return shared;
         });
     }
-}
\ No newline at end of file
+
+    private String key(List<ChatMessage> messages) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            update(digest, qwenConfig.getModelName());
+            update(digest, String.valueOf(qwenConfig.getTemperature()));
+            update(digest, String.valueOf(qwenConfig.getMaxTokens()));
+            for (ChatMessage message : messages) {
+                update(digest, message.type().name());
+                update(digest, text(message));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 消息的内容，ChatMessage.text()已弃用，按消息类型取；非纯文本的用户消息以全部内容参与哈希
+     */
+    private static String text(ChatMessage message) {
+        if (message instanceof UserMessage userMessage) {
+            return userMessage.hasSingleText() ? userMessage.singleText() : userMessage.contents().toString();
+        }
+        if (message instanceof AiMessage aiMessage) {
+            return aiMessage.text();
+        }
+        if (message instanceof SystemMessage systemMessage) {
+            return systemMessage.text();
+        }
+        if (message instanceof ToolExecutionResultMessage toolMessage) {
+            return toolMessage.text();
+        }
+        return message.toString();
+    }
+
+    /**
+     * 写入长度前缀，避免不同的消息拼接后相同
+     */
+    private static void update(MessageDigest digest, String value) {
+        byte[] bytes = value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+        digest.update(ByteBuffer.allocate(Integer.BYTES).putInt(value == null ? -1 : bytes.length).array());
+        digest.update(bytes);
+    }
+}
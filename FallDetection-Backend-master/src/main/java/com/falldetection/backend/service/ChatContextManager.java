@@ -0,0 +1,227 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.ChatContextConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.model.QwenStreamingChatModel;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.SystemMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 控制每轮发送给模型的上下文长度
+ * 从最近的问答开始向前取，估算token不超过maxTokens；窗口之外的早期问答合并进该会话的滚动摘要，
+ * 以系统消息放在最前面。摘要在后台生成并缓存，请求不等待摘要，摘要未追上时窗口外尚未合并的问答本轮不发送
+ */
+@Service
+@Slf4j
+public class ChatContextManager {
+    // 每条消息的角色、分隔符等固定开销
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private static final String SUMMARY_PREFIX = "以下是与用户此前对话的摘要，回答时可以参考：\n";
+
+    @AllArgsConstructor
+    private static class Summary {
+        private final String text;
+        // 摘要覆盖到的最后一轮问答，会话记录被截断后仍能定位
+        private final ChatDialog lastFolded;
+    }
+
+    private final QwenStreamingChatModel qwenStreamingChatModel;
+    private final ChatContextConfig config;
+
+    // 所有访问都在summaries上同步
+    private final Map<String, Summary> summaries;
+    // 正在生成摘要的会话，值用于判断结果是否仍然有效（期间会话被清空时丢弃）
+    private final Map<String, Object> pending = new HashMap<>();
+
+    private final DistributionSummary promptTokens;
+    private final Counter summarySuccess;
+    private final Counter summaryFailure;
+
+    public ChatContextManager(QwenStreamingChatModel qwenStreamingChatModel, ChatContextConfig config,
+                              MeterRegistry meterRegistry) {
+        this.qwenStreamingChatModel = qwenStreamingChatModel;
+        this.config = config;
+        this.summaries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Summary> eldest) {
+                return size() > config.getSummaryCacheSessions();
+            }
+        };
+        this.promptTokens = DistributionSummary.builder("chat.context.tokens")
+                .description("每轮发送给模型的估算token数")
+                .register(meterRegistry);
+        this.summarySuccess = meterRegistry.counter("chat.context.summaries", "result", "success");
+        this.summaryFailure = meterRegistry.counter("chat.context.summaries", "result", "failure");
+    }
+
+    /**
+     * 生成本轮发送给模型的消息
+     * @param turns 会话的全部问答记录，按时间顺序
+     * @param message 本次提问
+     */
+    public List<ChatMessage> buildMessages(String sessionId, List<ChatDialog> turns, String message) {
+        Summary summary;
+        synchronized (summaries) {
+            summary = summaries.get(sessionId);
+        }
+
+        int messageTokens = estimateTokens(message) + MESSAGE_OVERHEAD_TOKENS;
+        int historyTokens = 0;
+        for (ChatDialog turn : turns) {
+            historyTokens += estimateTokens(turn);
+        }
+        int windowStart = 0;
+        int used = historyTokens;
+        if (summary != null || messageTokens + historyTokens > config.getMaxTokens()) {
+            // 需要摘要时为它预留位置，从最近的问答开始向前取
+            int budget = config.getMaxTokens() - messageTokens - config.getSummaryMaxTokens() - MESSAGE_OVERHEAD_TOKENS;
+            windowStart = turns.size();
+            used = 0;
+            while (windowStart > 0) {
+                int tokens = estimateTokens(turns.get(windowStart - 1));
+                if (used + tokens > budget) {
+                    break;
+                }
+                used += tokens;
+                windowStart--;
+            }
+        }
+
+        // 已合并进摘要的问答数；摘要覆盖的最后一轮已被截掉时，当前记录都在摘要之后
+        int folded = summary == null ? 0 : turns.lastIndexOf(summary.lastFolded) + 1;
+        if (windowStart > folded) {
+            refreshSummary(sessionId, summary, turns.subList(folded, windowStart));
+        }
+
+        List<ChatMessage> messages = new ArrayList<>((turns.size() - windowStart) * 2 + 2);
+        int total = used + messageTokens;
+        if (summary != null) {
+            messages.add(SystemMessage.from(SUMMARY_PREFIX + summary.text));
+            total += estimateTokens(summary.text) + MESSAGE_OVERHEAD_TOKENS;
+        }
+        for (ChatDialog turn : turns.subList(windowStart, turns.size())) {
+            messages.add(UserMessage.from(turn.getQuestion()));
+            messages.add(AiMessage.from(turn.getAnswer()));
+        }
+        messages.add(UserMessage.from(message));
+        promptTokens.record(total);
+        return messages;
+    }
+
+    /**
+     * 清空会话时丢弃摘要和正在生成的摘要
+     */
+    public void evict(String sessionId) {
+        synchronized (summaries) {
+            summaries.remove(sessionId);
+            pending.remove(sessionId);
+        }
+    }
+
+    /**
+     * 估算文本的token数：汉字、假名、韩文等每个字符约1个token，其余字符约4个一个token
+     */
+    public static int estimateTokens(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int wide = 0;
+        int narrow = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            if (cp >= 0x2E80) {
+                wide++;
+            } else {
+                narrow++;
+            }
+            i += Character.charCount(cp);
+        }
+        return wide + (narrow + 3) / 4;
+    }
+
+    private static int estimateTokens(ChatDialog turn) {
+        return estimateTokens(turn.getQuestion()) + estimateTokens(turn.getAnswer()) + 2 * MESSAGE_OVERHEAD_TOKENS;
+    }
+
+    /**
+     * 在后台把previous和新移出窗口的问答合并为新的摘要，同一会话同时只生成一个
+     */
+    private void refreshSummary(String sessionId, Summary previous, List<ChatDialog> newlyFolded) {
+        Object token = new Object();
+        synchronized (summaries) {
+            if (pending.putIfAbsent(sessionId, token) != null) {
+                return;
+            }
+        }
+        ChatDialog lastFolded = newlyFolded.get(newlyFolded.size() - 1);
+        String prompt = summaryPrompt(previous, newlyFolded);
+        qwenStreamingChatModel.streamChat(prompt)
+                .collect(Collectors.joining())
+                .subscribe(text -> {
+                    synchronized (summaries) {
+                        if (pending.remove(sessionId, token)) {
+                            summaries.put(sessionId, new Summary(truncate(text.trim()), lastFolded));
+                        }
+                    }
+                    summarySuccess.increment();
+                }, error -> {
+                    synchronized (summaries) {
+                        pending.remove(sessionId, token);
+                    }
+                    summaryFailure.increment();
+                    log.warn("生成对话摘要失败. [sessionId={}]", sessionId, error);
+                });
+    }
+
+    private String summaryPrompt(Summary previous, List<ChatDialog> turns) {
+        StringBuilder prompt = new StringBuilder()
+                .append("请把下面的对话内容整理成一段摘要，保留用户的身体状况、跌倒经过、已经给出的建议和尚未解决的问题，")
+                .append("不超过").append(config.getSummaryMaxTokens()).append("字，只输出摘要本身。\n");
+        if (previous != null) {
+            prompt.append("\n已有摘要：\n").append(previous.text).append('\n');
+        }
+        prompt.append("\n").append(previous != null ? "后续对话：" : "对话：").append('\n');
+        for (ChatDialog turn : turns) {
+            prompt.append("用户：").append(turn.getQuestion()).append('\n')
+                    .append("助手：").append(turn.getAnswer()).append('\n');
+        }
+        return prompt.toString();
+    }
+
+    /**
+     * 模型偶尔会超出要求的长度，按估算token截断，保证预留的位置够用
+     */
+    private String truncate(String text) {
+        int wide = 0;
+        int narrow = 0;
+        for (int i = 0; i < text.length(); ) {
+            int cp = text.codePointAt(i);
+            if (cp >= 0x2E80) {
+                wide++;
+            } else {
+                narrow++;
+            }
+            if (wide + (narrow + 3) / 4 > config.getSummaryMaxTokens()) {
+                return text.substring(0, i);
+            }
+            i += Character.charCount(cp);
+        }
+        return text;
+    }
+}
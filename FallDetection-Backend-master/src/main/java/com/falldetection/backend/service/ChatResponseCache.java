@@ -0,0 +1,208 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.ChatResponseCacheConfig;
+import com.falldetection.backend.config.QwenConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 首轮和短上下文提问的模型回答缓存
+ * 跌倒后用户的提问高度重复（“现在该怎么办”“要不要叫人”），相同模型参数下，
+ * 归一化后的提问和此前问答都相同时直接回放缓存的回答，按配置的节奏分段推送，保持流式输出的体验
+ */
+@Service
+@Slf4j
+public class ChatResponseCache {
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final String answer;
+        private final long expiresAt;
+    }
+
+    private final ChatResponseCacheConfig config;
+    private final QwenConfig qwenConfig;
+
+    // accessOrder为true，超过maxEntries时淘汰最久未使用的；所有访问都在entries上同步
+    private final Map<String, Entry> entries;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+    private final Counter bypassCounter;
+
+    public ChatResponseCache(ChatResponseCacheConfig config, QwenConfig qwenConfig, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.qwenConfig = qwenConfig;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > config.getMaxEntries();
+            }
+        };
+        this.hitCounter = meterRegistry.counter("chat.response.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("chat.response.cache.requests", "result", "miss");
+        this.bypassCounter = meterRegistry.counter("chat.response.cache.requests", "result", "bypass");
+        Gauge.builder("chat.response.cache.size", this, ChatResponseCache::size)
+                .description("缓存的模型回答数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 命中时回放缓存的回答，否则调用generator，完整生成的回答写入缓存
+     * @param turns 会话此前的问答记录
+     * @param message 本次提问
+     * @param generator 调用模型生成回答
+     */
+    public Flux<String> getOrGenerate(List<ChatDialog> turns, String message, Supplier<Flux<String>> generator) {
+        if (!config.getEnabled() || turns.size() > config.getMaxContextTurns()) {
+            bypassCounter.increment();
+            return generator.get();
+        }
+        String key = key(turns, message);
+        String cached = get(key);
+        if (cached != null) {
+            hitCounter.increment();
+            return replay(cached);
+        }
+        missCounter.increment();
+        StringBuilder answer = new StringBuilder();
+        // 出错或客户端中途断开时回答不完整，不写入缓存
+        return generator.get()
+                .doOnNext(answer::append)
+                .doOnComplete(() -> put(key, answer.toString()));
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    private String get(String key) {
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt - System.nanoTime() <= 0) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.answer;
+        }
+    }
+
+    private void put(String key, String answer) {
+        if (answer.isEmpty() || answer.length() > config.getMaxAnswerChars()) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.getTtlSeconds());
+        synchronized (entries) {
+            entries.put(key, new Entry(answer, expiresAt));
+        }
+    }
+
+    private Flux<String> replay(String answer) {
+        List<String> chunks = new ArrayList<>();
+        int size = Math.max(1, config.getReplayChunkChars());
+        int start = 0;
+        while (start < answer.length()) {
+            // 按码点切分，不拆开代理对
+            int end = start;
+            for (int n = 0; n < size && end < answer.length(); n++) {
+                end += Character.charCount(answer.codePointAt(end));
+            }
+            chunks.add(answer.substring(start, end));
+            start = end;
+        }
+        Flux<String> flux = Flux.fromIterable(chunks);
+        if (config.getReplayIntervalMs() > 0) {
+            flux = flux.delayElements(Duration.ofMillis(config.getReplayIntervalMs()));
+        }
+        return flux;
+    }
+
+    /**
+     * 缓存key：模型参数和归一化后的问答、提问的SHA-256
+     */
+    private String key(List<ChatDialog> turns, String message) {
+        StringBuilder text = new StringBuilder()
+                .append(qwenConfig.getModelName()).append('\u0000')
+                .append(qwenConfig.getTemperature()).append('\u0000')
+                .append(qwenConfig.getMaxTokens()).append('\u0000');
+        for (ChatDialog turn : turns) {
+            text.append(normalize(turn.getQuestion())).append('\u0000')
+                    .append(turn.getAnswer()).append('\u0000');
+        }
+        text.append(normalize(message));
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(text.toString().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 全角转半角、转小写、去掉标点，连续空白合并为一个空格
+     */
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String folded = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase();
+        StringBuilder normalized = new StringBuilder(folded.length());
+        boolean space = false;
+        for (int i = 0; i < folded.length(); ) {
+            int cp = folded.codePointAt(i);
+            i += Character.charCount(cp);
+            if (Character.isWhitespace(cp)) {
+                space = normalized.length() > 0;
+                continue;
+            }
+            if (isPunctuation(cp)) {
+                continue;
+            }
+            if (space) {
+                normalized.append(' ');
+                space = false;
+            }
+            normalized.appendCodePoint(cp);
+        }
+        return normalized.toString();
+    }
+
+    private static boolean isPunctuation(int cp) {
+        switch (Character.getType(cp)) {
+            case Character.CONNECTOR_PUNCTUATION:
+            case Character.DASH_PUNCTUATION:
+            case Character.START_PUNCTUATION:
+            case Character.END_PUNCTUATION:
+            case Character.INITIAL_QUOTE_PUNCTUATION:
+            case Character.FINAL_QUOTE_PUNCTUATION:
+            case Character.OTHER_PUNCTUATION:
+                return true;
+            default:
+                return false;
+        }
+    }
+}
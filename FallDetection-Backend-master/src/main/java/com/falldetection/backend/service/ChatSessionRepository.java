@@ -0,0 +1,23 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.dto.ChatDialog;
+
+import java.util.List;
+
+/**
+ * 聊天会话问答记录的存储，由chat.session.store选择实现
+ * memory：保存在本实例内存中；redis：保存在Redis中，任一实例都可以继续同一个sessionId的对话
+ */
+public interface ChatSessionRepository {
+    /**
+     * 会话的问答记录，按时间顺序，会话不存在或已过期时返回空列表
+     */
+    List<ChatDialog> getTurns(String sessionId);
+
+    /**
+     * 追加一轮问答，超过chat.session.max-turns时丢弃最早的问答
+     */
+    void appendTurn(String sessionId, ChatDialog turn);
+
+    void remove(String sessionId);
+}
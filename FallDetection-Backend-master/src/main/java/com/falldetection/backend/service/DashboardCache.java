@@ -0,0 +1,108 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.DashboardConfig;
+import com.falldetection.backend.dto.DashboardDTO;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 仪表盘聚合结果的本地短期缓存
+ * 用户事件变化时按用户失效；加载前取版本号，加载期间发生过失效的结果不写入缓存。
+ * 其他实例上的变化不会通知到这里，最多延迟cacheTtlMs，计数另有SSE推送
+ */
+@Service
+public class DashboardCache {
+    // 版本号按userId分段，避免为每个用户保留一个计数器
+    private static final int VERSION_STRIPES = 64;
+
+    private final DashboardConfig config;
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public DashboardCache(DashboardConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.hitCounter = meterRegistry.counter("dashboard.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("dashboard.cache.requests", "result", "miss");
+    }
+
+    public DashboardDTO get(Long userId) {
+        Entry entry = entries.get(userId);
+        if (entry != null && entry.expiresAt - System.nanoTime() > 0) {
+            hitCounter.increment();
+            return entry.value;
+        }
+        missCounter.increment();
+        return null;
+    }
+
+    /**
+     * 加载前调用，随后传给put
+     */
+    public long version(Long userId) {
+        return versions.get(stripe(userId));
+    }
+
+    public void put(Long userId, long version, DashboardDTO value) {
+        if (entries.size() >= config.getCacheMaxUsers() && !entries.containsKey(userId)) {
+            long now = System.nanoTime();
+            entries.values().removeIf(e -> e.expiresAt - now <= 0);
+            if (entries.size() >= config.getCacheMaxUsers()) {
+                return;
+            }
+        }
+        entries.put(userId, new Entry(value,
+                System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(config.getCacheTtlMs())));
+        // 写入期间被失效过则撤回，避免缓存加载到的旧数据
+        if (versions.get(stripe(userId)) != version) {
+            entries.remove(userId);
+        }
+    }
+
+    /**
+     * 使用户的缓存失效，在事务中调用时等到提交之后再执行
+     */
+    public void invalidate(Collection<Long> userIds) {
+        Set<Long> distinct = Set.copyOf(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(distinct);
+                }
+            });
+        } else {
+            evict(distinct);
+        }
+    }
+
+    private void evict(Set<Long> userIds) {
+        for (Long userId : userIds) {
+            versions.incrementAndGet(stripe(userId));
+            entries.remove(userId);
+        }
+    }
+
+    private static int stripe(Long userId) {
+        return (int) Math.floorMod(userId, (long) VERSION_STRIPES);
+    }
+
+    @AllArgsConstructor
+    private static class Entry {
+        private final DashboardDTO value;
+        private final long expiresAt;
+    }
+}
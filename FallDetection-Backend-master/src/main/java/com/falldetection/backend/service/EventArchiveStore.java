@@ -0,0 +1,633 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.EventArchiveConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.entity.EventStats;
+import com.falldetection.backend.mapper.EventMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+
+/**
+ * 冷数据归档：把早于保留窗口的事件从fall_events移到本地只追加的段文件中
+ * <p>
+ * 段文件 segment-NNNNNN.dat 由压缩块顺序拼接而成，每个块只包含一个用户的最多 blockSize 个事件（新到旧），
+ * 超过 segmentMaxBytes 后写入新的段。catalog.dat 开头是已归档的时间上界（watermark），fall_events 中早于它的行
+ * 都已在段文件里；其后是定长记录的稀疏索引，每个块一条，记录所在段、偏移、条数、首尾事件位置和各类型计数。
+ * 每次归档把watermark和完整索引写到临时文件再原子替换，两者同时生效，中途崩溃不会留下已索引但未推进watermark的块；
+ * 没有被catalog引用的段文件在启动时删除。启动时整体加载到内存，读取时段文件通过内存映射访问，按索引跳过整块，只解压需要的块
+ * <p>
+ * 归档的事件只读。修改fall_events的事务在beginMutation/endMutation之间进行，归档开始时等待这些事务结束，
+ * 之后早于cutoff的行不再允许修改，写入段文件的就是删除前的最终状态。锁只在本实例内有效，归档目录本身也只属于本实例
+ */
+@Service
+@Slf4j
+public class EventArchiveStore {
+    private static final String CATALOG_FILE = "catalog.dat";
+    private static final int CATALOG_MAGIC = 0x46444143;
+    private static final int CATALOG_HEADER_BYTES = 16;
+    private static final int INDEX_ENTRY_BYTES = 88;
+
+    /** 块开头的格式标记，格式变化时换一个值 */
+    private static final int BLOCK_FORMAT = -2;
+
+    @Autowired
+    private EventArchiveConfig config;
+
+    @Autowired
+    private EventMapper eventMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private Path dir;
+
+    /** userId -> 该用户的块，按新到旧排序；归档任务完成后整体替换 */
+    private volatile Map<Long, List<BlockRef>> userBlocks = Collections.emptyMap();
+
+    private volatile LocalDateTime watermark;
+
+    /** 正在进行的归档的时间上界，提交前早于它的行正在写入段文件 */
+    private volatile LocalDateTime archiving;
+
+    /** 修改事件的事务持有读锁，归档开始时取写锁；公平锁，归档不会被持续的修改饿死 */
+    private final ReentrantReadWriteLock mutationLock = new ReentrantReadWriteLock(true);
+
+    private final Map<Integer, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (!config.getEnabled()) {
+            return;
+        }
+        dir = Paths.get(config.getDir());
+        Files.createDirectories(dir);
+        List<BlockRef> loaded = Files.exists(dir.resolve(CATALOG_FILE)) ? loadCatalog() : new ArrayList<>();
+        Map<Long, List<BlockRef>> blocks = new HashMap<>();
+        Set<Integer> referenced = new HashSet<>();
+        for (BlockRef block : loaded) {
+            blocks.computeIfAbsent(block.getUserId(), k -> new ArrayList<>()).add(block);
+            referenced.add(block.getSegmentId());
+        }
+        blocks.values().forEach(list -> list.sort(BlockRef.NEWEST_FIRST));
+        userBlocks = blocks;
+        // 归档中途崩溃留下的段没有提交到catalog，其中的事件仍在fall_events中
+        for (int segmentId : listSegmentIds()) {
+            if (!referenced.contains(segmentId)) {
+                Files.delete(dir.resolve(segmentName(segmentId)));
+                log.warn("删除未提交的归档段. [segment={}]", segmentId);
+            }
+        }
+        log.info("加载事件归档索引. [users={}, blocks={}, watermark={}]", blocks.size(), loaded.size(), watermark);
+    }
+
+    private List<BlockRef> loadCatalog() throws IOException {
+        ByteBuffer catalog = ByteBuffer.wrap(Files.readAllBytes(dir.resolve(CATALOG_FILE)));
+        if (catalog.remaining() < CATALOG_HEADER_BYTES || catalog.getInt() != CATALOG_MAGIC) {
+            throw new IllegalStateException("归档catalog格式错误: " + dir.resolve(CATALOG_FILE));
+        }
+        long seconds = catalog.getLong();
+        int nanos = catalog.getInt();
+        watermark = nanos < 0 ? null : LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        List<BlockRef> blocks = new ArrayList<>(catalog.remaining() / INDEX_ENTRY_BYTES);
+        while (catalog.remaining() >= INDEX_ENTRY_BYTES) {
+            blocks.add(BlockRef.read(catalog));
+        }
+        return blocks;
+    }
+
+    @PreDestroy
+    public void close() {
+        segments.clear();
+    }
+
+    public boolean isEnabled() {
+        return config.getEnabled();
+    }
+
+    /**
+     * @return 已归档的时间上界，fall_events中只需查询不早于它的行；未启用或尚未归档时为null
+     */
+    public LocalDateTime getWatermark() {
+        return watermark;
+    }
+
+    /**
+     * @return 可以修改的最早时间，更早的事件已归档或正在归档，只读；未启用或尚未归档时为null
+     */
+    public LocalDateTime getWritableFrom() {
+        LocalDateTime pending = archiving;
+        return pending != null ? pending : watermark;
+    }
+
+    /**
+     * 修改fall_events中的事件前调用，与endMutation成对使用，持有到事务提交或回滚之后
+     * @return 本次修改可以涉及的最早时间，见getWritableFrom
+     */
+    public LocalDateTime beginMutation() {
+        mutationLock.readLock().lock();
+        return getWritableFrom();
+    }
+
+    public void endMutation() {
+        mutationLock.readLock().unlock();
+    }
+
+    public boolean isArchived(Long userId, Long id) {
+        return watermark != null && findById(userId, id) != null;
+    }
+
+    public Set<Long> getArchivedUserIds() {
+        return userBlocks.keySet();
+    }
+
+    public long count(Long userId) {
+        return userBlocks.getOrDefault(userId, Collections.emptyList()).stream()
+                .mapToLong(BlockRef::getCount)
+                .sum();
+    }
+
+    /**
+     * @return 用户已归档事件的各类型计数，没有归档时为null
+     */
+    public EventStats getArchivedStats(Long userId) {
+        List<BlockRef> blocks = userBlocks.get(userId);
+        if (blocks == null) {
+            return null;
+        }
+        EventStats stats = new EventStats(userId, 0L, 0L, 0L, 0L);
+        for (BlockRef block : blocks) {
+            stats.setTotal(stats.getTotal() + block.getCount());
+            stats.setConfirmed(stats.getConfirmed() + block.getConfirmed());
+            stats.setFalseAlarm(stats.getFalseAlarm() + block.getFalseAlarm());
+            stats.setEmergency(stats.getEmergency() + block.getEmergency());
+        }
+        return stats;
+    }
+
+    /**
+     * 按偏移读取归档事件（新到旧），整块跳过不需要解压
+     */
+    public List<Event> readPage(Long userId, long skip, int limit) {
+        List<Event> result = new ArrayList<>(limit);
+        for (BlockRef block : userBlocks.getOrDefault(userId, Collections.emptyList())) {
+            if (result.size() >= limit) {
+                break;
+            }
+            if (skip >= block.getCount()) {
+                skip -= block.getCount();
+                continue;
+            }
+            List<Event> events = readBlock(block);
+            for (int i = (int) skip; i < events.size() && result.size() < limit; i++) {
+                result.add(events.get(i));
+            }
+            skip = 0;
+        }
+        return result;
+    }
+
+    /**
+     * 读取排在 (timestamp, id) 之后的归档事件，用于游标分页；timestamp为null时从最新的归档事件开始
+     */
+    public List<Event> readAfter(Long userId, LocalDateTime timestamp, Long id, int limit) {
+        List<Event> result = new ArrayList<>(limit);
+        long position = timestamp == null ? Long.MAX_VALUE : toEpoch(timestamp);
+        long positionId = id == null ? Long.MAX_VALUE : id;
+        for (BlockRef block : userBlocks.getOrDefault(userId, Collections.emptyList())) {
+            if (result.size() >= limit) {
+                break;
+            }
+            // 整块都不早于游标位置时跳过
+            if (block.getOldestTs() > position || block.getOldestTs() == position && block.getOldestId() >= positionId) {
+                continue;
+            }
+            for (Event event : readBlock(block)) {
+                long ts = toEpoch(event.getTimestamp());
+                if ((ts < position || ts == position && event.getId() < positionId) && result.size() < limit) {
+                    result.add(event);
+                }
+            }
+        }
+        return result;
+    }
+
+    public Event findById(Long userId, Long id) {
+        for (BlockRef block : userBlocks.getOrDefault(userId, Collections.emptyList())) {
+            if (id < block.getMinId() || id > block.getMaxId()) {
+                continue;
+            }
+            for (Event event : readBlock(block)) {
+                if (event.getId().equals(id)) {
+                    return event;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 归档事件引用的全部截图URL；需要解压所有块，只供定期清理截图使用
+     */
+    public Set<String> collectImageUrls() {
+        Set<String> urls = new HashSet<>();
+        for (List<BlockRef> blocks : userBlocks.values()) {
+            for (BlockRef block : blocks) {
+                for (Event event : readBlock(block)) {
+                    if (event.getImageUrl() != null) {
+                        urls.add(event.getImageUrl());
+                    }
+                }
+            }
+        }
+        return urls;
+    }
+
+    /**
+     * 把早于cutoff的事件归档并从fall_events删除，由EventArchiveJob单线程调用
+     */
+    public synchronized void archiveBefore(LocalDateTime cutoff) throws IOException {
+        // 上次归档写完索引后未删完的行
+        if (watermark != null) {
+            purgeHotRows(watermark);
+            if (!cutoff.isAfter(watermark)) {
+                return;
+            }
+        }
+
+        // 等待已开始的修改提交，之后早于cutoff的行不再被修改，读到的就是删除前的最终状态
+        mutationLock.writeLock().lock();
+        try {
+            archiving = cutoff;
+        } finally {
+            mutationLock.writeLock().unlock();
+        }
+        try {
+            archive(cutoff);
+        } finally {
+            archiving = null;
+        }
+        purgeHotRows(cutoff);
+    }
+
+    private void archive(LocalDateTime cutoff) throws IOException {
+        List<Long> userIds = eventMapper.selectUserIdsBefore(cutoff);
+        List<BlockRef> written = new ArrayList<>();
+        if (!userIds.isEmpty()) {
+            try (SegmentWriter writer = new SegmentWriter(nextSegmentId())) {
+                for (Long userId : userIds) {
+                    transactionTemplate.executeWithoutResult(status -> {
+                        try (Cursor<Event> cursor = eventMapper.streamByUserBefore(userId, cutoff)) {
+                            List<Event> buffer = new ArrayList<>(config.getBlockSize());
+                            for (Event event : cursor) {
+                                buffer.add(event);
+                                if (buffer.size() == config.getBlockSize()) {
+                                    written.add(writeBlock(writer, userId, buffer));
+                                    buffer.clear();
+                                }
+                            }
+                            if (!buffer.isEmpty()) {
+                                written.add(writeBlock(writer, userId, buffer));
+                            }
+                        } catch (IOException e) {
+                            throw new IllegalStateException("写入归档段失败", e);
+                        }
+                    });
+                }
+            }
+        }
+
+        Map<Long, List<BlockRef>> blocks = new HashMap<>();
+        userBlocks.forEach((userId, list) -> blocks.put(userId, new ArrayList<>(list)));
+        for (BlockRef block : written) {
+            blocks.computeIfAbsent(block.getUserId(), k -> new ArrayList<>()).add(block);
+        }
+        blocks.values().forEach(list -> list.sort(BlockRef.NEWEST_FIRST));
+        // 段文件已落盘，索引和watermark一起提交；提交之前崩溃时本次写入的段在启动时删除，事件仍在fall_events中
+        writeCatalog(blocks, cutoff);
+        userBlocks = blocks;
+        watermark = cutoff;
+        log.info("事件归档完成. [users={}, blocks={}, watermark={}]", userIds.size(), written.size(), cutoff);
+    }
+
+    private void purgeHotRows(LocalDateTime before) {
+        int deleted;
+        long total = 0;
+        do {
+            // 分批删除，避免长时间持有锁；按timestamp条件可以命中分区裁剪
+            deleted = eventMapper.deleteBefore(before, config.getDeleteChunkSize());
+            total += deleted;
+        } while (deleted > 0);
+        if (total > 0) {
+            log.info("从fall_events删除已归档事件. [before={}, rows={}]", before, total);
+        }
+    }
+
+    private BlockRef writeBlock(SegmentWriter writer, Long userId, List<Event> events) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        int confirmed = 0;
+        int falseAlarm = 0;
+        int emergency = 0;
+        long minId = Long.MAX_VALUE;
+        long maxId = Long.MIN_VALUE;
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, new Deflater(), true))) {
+            out.writeInt(BLOCK_FORMAT);
+            out.writeInt(events.size());
+            for (Event event : events) {
+                out.writeLong(event.getId());
+                out.writeLong(toEpoch(event.getTimestamp()));
+                int eventType = event.getEventType() == null ? -1 : event.getEventType();
+                out.writeInt(eventType);
+                writeString(out, event.getImageUrl());
+                out.writeInt(event.getRepeatCount() == null ? 1 : event.getRepeatCount());
+                List<ChatDialog> dialogs = event.getDialog();
+                out.writeInt(dialogs == null ? -1 : dialogs.size());
+                if (dialogs != null) {
+                    for (ChatDialog dialog : dialogs) {
+                        writeString(out, dialog.getQuestion());
+                        writeString(out, dialog.getAnswer());
+                    }
+                }
+                switch (eventType) {
+                    case 0 -> confirmed++;
+                    case 1 -> falseAlarm++;
+                    case 2 -> emergency++;
+                    default -> {
+                    }
+                }
+                minId = Math.min(minId, event.getId());
+                maxId = Math.max(maxId, event.getId());
+            }
+        }
+        FileChannel channel = writer.reserve(bytes.size());
+        long offset = channel.position();
+        ByteBuffer data = ByteBuffer.wrap(bytes.toByteArray());
+        while (data.hasRemaining()) {
+            channel.write(data);
+        }
+        Event newest = events.get(0);
+        Event oldest = events.get(events.size() - 1);
+        return new BlockRef(userId, writer.getSegmentId(), offset, bytes.size(), events.size(),
+                toEpoch(newest.getTimestamp()), newest.getId(), toEpoch(oldest.getTimestamp()), oldest.getId(),
+                minId, maxId, confirmed, falseAlarm, emergency);
+    }
+
+    private List<Event> readBlock(BlockRef block) {
+        // 段文件不超过segmentMaxBytes（小于2GB），偏移可以安全地转成int
+        int offset = Math.toIntExact(block.getOffset());
+        ByteBuffer data = segment(block.getSegmentId()).duplicate();
+        data.position(offset).limit(Math.addExact(offset, block.getLength()));
+        try (DataInputStream in = new DataInputStream(new InflatingInputStream(data.slice()))) {
+            if (in.readInt() != BLOCK_FORMAT) {
+                throw new IOException("未知的归档块格式");
+            }
+            int count = in.readInt();
+            List<Event> events = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Event event = new Event();
+                event.setUserId(block.getUserId());
+                event.setId(in.readLong());
+                event.setTimestamp(LocalDateTime.ofEpochSecond(in.readLong(), 0, ZoneOffset.UTC));
+                int eventType = in.readInt();
+                event.setEventType(eventType < 0 ? null : eventType);
+                event.setImageUrl(readString(in));
+                event.setRepeatCount(in.readInt());
+                int dialogCount = in.readInt();
+                if (dialogCount >= 0) {
+                    List<ChatDialog> dialogs = new ArrayList<>(dialogCount);
+                    for (int j = 0; j < dialogCount; j++) {
+                        dialogs.add(new ChatDialog(readString(in), readString(in)));
+                    }
+                    event.setDialog(dialogs);
+                }
+                events.add(event);
+            }
+            return events;
+        } catch (IOException e) {
+            throw new IllegalStateException("读取归档块失败: " + block, e);
+        }
+    }
+
+    private MappedByteBuffer segment(int segmentId) {
+        return segments.computeIfAbsent(segmentId, id -> {
+            try (FileChannel channel = FileChannel.open(dir.resolve(segmentName(id)), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new IllegalStateException("映射归档段失败: " + id, e);
+            }
+        });
+    }
+
+    /**
+     * 写入watermark和全部块的索引：先写临时文件并fsync，再原子替换catalog.dat
+     */
+    private void writeCatalog(Map<Long, List<BlockRef>> blocks, LocalDateTime newWatermark) throws IOException {
+        int count = blocks.values().stream().mapToInt(List::size).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(CATALOG_HEADER_BYTES + count * INDEX_ENTRY_BYTES);
+        buffer.putInt(CATALOG_MAGIC).putLong(toEpoch(newWatermark)).putInt(newWatermark.getNano());
+        blocks.values().forEach(list -> list.forEach(block -> block.write(buffer)));
+        buffer.flip();
+        Path tmp = dir.resolve(CATALOG_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, dir.resolve(CATALOG_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private List<Integer> listSegmentIds() throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try (var files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                String name = file.getFileName().toString();
+                if (name.startsWith("segment-") && name.endsWith(".dat")) {
+                    ids.add(Integer.parseInt(name.substring(8, name.length() - 4)));
+                }
+            }
+        }
+        return ids;
+    }
+
+    private int nextSegmentId() throws IOException {
+        return listSegmentIds().stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+    }
+
+    private static String segmentName(int segmentId) {
+        return String.format("segment-%06d.dat", segmentId);
+    }
+
+    private static long toEpoch(LocalDateTime timestamp) {
+        return timestamp.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 直接从映射内存解压，不先拷贝出压缩数据
+     */
+    private static class InflatingInputStream extends InputStream {
+        private final Inflater inflater = new Inflater();
+        private final byte[] single = new byte[1];
+
+        InflatingInputStream(ByteBuffer compressed) {
+            inflater.setInput(compressed);
+        }
+
+        @Override
+        public int read() throws IOException {
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            try {
+                int n = inflater.inflate(b, off, len);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    return -1;
+                }
+                return n;
+            } catch (DataFormatException e) {
+                throw new IOException(e);
+            }
+        }
+
+        @Override
+        public void close() {
+            inflater.end();
+        }
+    }
+
+    /**
+     * 顺序写入段文件，写入的块会超过segmentMaxBytes时换到下一个段；关闭时fsync
+     */
+    private class SegmentWriter implements AutoCloseable {
+        private final long maxBytes = Math.min(config.getSegmentMaxBytes(), Integer.MAX_VALUE);
+        private int segmentId;
+        private FileChannel channel;
+
+        SegmentWriter(int segmentId) throws IOException {
+            open(segmentId);
+        }
+
+        int getSegmentId() {
+            return segmentId;
+        }
+
+        FileChannel reserve(int length) throws IOException {
+            if (channel.position() > 0 && channel.position() + length > maxBytes) {
+                close();
+                open(segmentId + 1);
+            }
+            return channel;
+        }
+
+        private void open(int id) throws IOException {
+            segmentId = id;
+            channel = FileChannel.open(dir.resolve(segmentName(id)), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (FileChannel closing = channel) {
+                closing.force(true);
+            }
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class BlockRef {
+        static final Comparator<BlockRef> NEWEST_FIRST = Comparator.comparingLong(BlockRef::getNewestTs)
+                .thenComparingLong(BlockRef::getNewestId)
+                .reversed();
+
+        private long userId;
+        private int segmentId;
+        private long offset;
+        private int length;
+        private int count;
+        private long newestTs;
+        private long newestId;
+        private long oldestTs;
+        private long oldestId;
+        private long minId;
+        private long maxId;
+        private int confirmed;
+        private int falseAlarm;
+        private int emergency;
+
+        void write(ByteBuffer buffer) {
+            buffer.putLong(userId).putInt(segmentId).putLong(offset).putInt(length).putInt(count)
+                    .putLong(newestTs).putLong(newestId).putLong(oldestTs).putLong(oldestId)
+                    .putLong(minId).putLong(maxId).putInt(confirmed).putInt(falseAlarm).putInt(emergency);
+        }
+
+        static BlockRef read(ByteBuffer buffer) {
+            return new BlockRef(buffer.getLong(), buffer.getInt(), buffer.getLong(), buffer.getInt(), buffer.getInt(),
+                    buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong(),
+                    buffer.getLong(), buffer.getLong(), buffer.getInt(), buffer.getInt(), buffer.getInt());
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.falldetection.backend.service;
+
+import cn.hutool.core.bean.BeanUtil;
+import com.falldetection.backend.config.EventCoalesceConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.entity.Event;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 跌倒事件突发上报的合并
+ * <p>
+ * 检测端在画面中短暂检测不到跌倒后就会重新上报，同一次跌倒会产生一串几乎相同的事件。
+ * 每个用户在内存中保留最近 ringSize 条已写入的事件，距离上一次上报不超过 windowSeconds 的同类事件
+ * 合并到已有记录：repeat_count 加一，截图换成最新的，问答记录追加。
+ * 环形缓冲只在事务提交后更新，服务重启后清空，此时最多多写入一条记录
+ */
+@Service
+public class EventCoalescer {
+
+    @Autowired
+    private EventCoalesceConfig config;
+
+    private final Map<Long, Recent[]> rings = new ConcurrentHashMap<>();
+
+    public boolean isEnabled() {
+        return config.getEnabled();
+    }
+
+    /**
+     * 查找可以合并arrival的已写入事件
+     * @return 最近一条同类且仍在窗口内的事件，没有时返回null
+     */
+    public Recent find(Event arrival) {
+        Recent[] ring = rings.get(arrival.getUserId());
+        if (ring == null) {
+            return null;
+        }
+        synchronized (ring) {
+            Recent best = null;
+            for (Recent recent : ring) {
+                if (recent != null && Objects.equals(recent.getEventType(), arrival.getEventType())
+                        && withinWindow(recent.getLastSeen(), arrival.getTimestamp())
+                        && (best == null || recent.getLastSeen().isAfter(best.getLastSeen()))) {
+                    best = recent;
+                }
+            }
+            return best;
+        }
+    }
+
+    /**
+     * 合并同一批次内的重复事件（异步写入时事件还没有id），被合并的事件计入前一条的repeatCount
+     * @return 合并后的事件，顺序不变
+     */
+    public List<Event> fold(List<Event> events) {
+        Map<String, Integer> heads = new HashMap<>();
+        Map<String, LocalDateTime> lastSeen = new HashMap<>();
+        Set<Integer> copied = new HashSet<>();
+        List<Event> result = new ArrayList<>(events.size());
+        for (Event event : events) {
+            String key = event.getUserId() + ":" + event.getEventType();
+            Integer head = heads.get(key);
+            if (head != null && withinWindow(lastSeen.get(key), event.getTimestamp())) {
+                // 合并到副本上，批次写入失败重试时不会重复累加
+                if (copied.add(head)) {
+                    result.set(head, BeanUtil.copyProperties(result.get(head), Event.class));
+                }
+                merge(result.get(head), event);
+            } else {
+                heads.put(key, result.size());
+                result.add(event);
+            }
+            lastSeen.put(key, event.getTimestamp());
+        }
+        return result;
+    }
+
+    /**
+     * 把arrival的内容合并到target：计数累加，截图取新的，问答记录追加
+     */
+    public static void merge(Event target, Event arrival) {
+        target.setRepeatCount(repeatCount(target) + repeatCount(arrival));
+        if (arrival.getImageUrl() != null) {
+            target.setImageUrl(arrival.getImageUrl());
+        }
+        if (arrival.getDialog() != null && !arrival.getDialog().isEmpty()) {
+            List<ChatDialog> dialogs = target.getDialog() == null
+                    ? new ArrayList<>()
+                    : new ArrayList<>(target.getDialog());
+            dialogs.addAll(arrival.getDialog());
+            target.setDialog(dialogs);
+        }
+    }
+
+    public static int repeatCount(Event event) {
+        return event.getRepeatCount() == null ? 1 : event.getRepeatCount();
+    }
+
+    /**
+     * 记录新写入的事件，在事务提交后生效
+     */
+    public void onEventsSaved(Collection<Event> events) {
+        List<Event> saved = new ArrayList<>(events);
+        afterCommit(() -> {
+            for (Event event : saved) {
+                if (event.getId() == null || event.getUserId() == null || event.getTimestamp() == null) {
+                    continue;
+                }
+                Recent[] ring = rings.computeIfAbsent(event.getUserId(), id -> new Recent[config.getRingSize()]);
+                synchronized (ring) {
+                    // 替换最久没有上报的一条
+                    int slot = 0;
+                    for (int i = 0; i < ring.length; i++) {
+                        if (ring[i] == null) {
+                            slot = i;
+                            break;
+                        }
+                        if (ring[i].getLastSeen().isBefore(ring[slot].getLastSeen())) {
+                            slot = i;
+                        }
+                    }
+                    ring[slot] = new Recent(event.getId(), event.getTimestamp(), event.getEventType(),
+                            event.getTimestamp());
+                }
+            }
+        });
+    }
+
+    /**
+     * 记录合并后的最后上报时间，在事务提交后生效
+     */
+    public void onMerged(Long userId, Recent target, LocalDateTime seenAt) {
+        afterCommit(() -> {
+            Recent[] ring = rings.get(userId);
+            if (ring == null) {
+                return;
+            }
+            synchronized (ring) {
+                if (seenAt.isAfter(target.getLastSeen())) {
+                    target.setLastSeen(seenAt);
+                }
+            }
+        });
+    }
+
+    /**
+     * 目标记录已不存在或已被修改类型，不再用于合并
+     */
+    public void forget(Long userId, Recent target) {
+        Recent[] ring = rings.get(userId);
+        if (ring == null) {
+            return;
+        }
+        synchronized (ring) {
+            for (int i = 0; i < ring.length; i++) {
+                if (ring[i] == target) {
+                    ring[i] = null;
+                }
+            }
+        }
+    }
+
+    private boolean withinWindow(LocalDateTime lastSeen, LocalDateTime arrival) {
+        if (lastSeen == null || arrival == null) {
+            return false;
+        }
+        Duration gap = Duration.between(lastSeen, arrival);
+        return !gap.isNegative() && gap.getSeconds() <= config.getWindowSeconds();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Recent {
+        private Long eventId;
+
+        // 记录的timestamp，和id一起组成主键
+        private LocalDateTime timestamp;
+        private Integer eventType;
+        private LocalDateTime lastSeen;
+    }
+}
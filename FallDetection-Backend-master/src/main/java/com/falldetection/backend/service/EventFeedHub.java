@@ -0,0 +1,132 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.EventFeedConfig;
+import com.falldetection.backend.dto.EventDTO;
+import com.falldetection.backend.dto.EventFeedMessage;
+import com.falldetection.backend.entity.EventStats;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import reactor.core.Exceptions;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 按用户推送事件变更的SSE通道
+ * <p>
+ * 每个有连接的用户一个多播Sink，同一用户的所有连接共享；每个连接有自己的有界缓冲，
+ * 缓冲满（客户端消费太慢）时给该连接发送resync并结束，客户端重新拉取列表后再重连，不影响其他连接
+ */
+@Service
+@Slf4j
+public class EventFeedHub {
+
+    private final EventFeedConfig config;
+    private final IEventStatsService eventStatsService;
+
+    private final Map<Long, Channel> channels = new ConcurrentHashMap<>();
+
+    public EventFeedHub(EventFeedConfig config, IEventStatsService eventStatsService, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.eventStatsService = eventStatsService;
+        Gauge.builder("event.feed.subscribers", channels,
+                        map -> map.values().stream().mapToInt(channel -> channel.subscribers).sum())
+                .description("事件推送的连接数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅用户的事件推送，连接建立后先推送一次当前计数
+     */
+    public Flux<ServerSentEvent<EventFeedMessage>> subscribe(Long userId) {
+        return Flux.defer(() -> {
+            Channel channel = channels.compute(userId, (id, current) -> {
+                Channel c = current == null ? new Channel() : current;
+                c.subscribers++;
+                return c;
+            });
+            Flux<ServerSentEvent<EventFeedMessage>> messages = channel.sink.asFlux()
+                    .startWith(EventFeedMessage.stats(eventStatsService.getStats(userId)))
+                    .map(message -> ServerSentEvent.builder(message).event(message.getType()).build());
+            Flux<ServerSentEvent<EventFeedMessage>> heartbeats = Flux.interval(Duration.ofSeconds(config.getHeartbeatSeconds()))
+                    .map(tick -> ServerSentEvent.<EventFeedMessage>builder().comment("heartbeat").build());
+            // 缓冲放在合并之后，积压只取决于客户端的消费速度
+            return messages.mergeWith(heartbeats)
+                    .onBackpressureBuffer(config.getBufferSize(), BufferOverflowStrategy.ERROR)
+                    .onErrorResume(Exceptions::isOverflow, e -> {
+                        log.warn("事件推送积压过多，要求客户端重新同步. [userId={}]", userId);
+                        return Flux.just(ServerSentEvent.builder(EventFeedMessage.resync())
+                                .event(EventFeedMessage.TYPE_RESYNC)
+                                .build());
+                    })
+                    .doFinally(signal -> channels.computeIfPresent(userId, (id, c) -> --c.subscribers == 0 ? null : c));
+        });
+    }
+
+    /**
+     * 事件写入/删除后推送给该用户的所有连接，在事务中调用时等到提交之后再推送
+     */
+    public void onEventsChanged(Collection<EventDTO> saved, Collection<EventDTO> removed) {
+        List<EventFeedMessage> messages = saved.stream().map(EventFeedMessage::saved).collect(Collectors.toList());
+        removed.stream().map(EventFeedMessage::removed).forEach(messages::add);
+        if (messages.isEmpty()) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    publish(messages);
+                }
+            });
+        } else {
+            publish(messages);
+        }
+    }
+
+    private void publish(List<EventFeedMessage> messages) {
+        Map<Long, List<EventFeedMessage>> byUser = messages.stream()
+                .filter(message -> message.getEvent().getUserId() != null)
+                .collect(Collectors.groupingBy(message -> message.getEvent().getUserId()));
+        byUser.forEach((userId, userMessages) -> {
+            Channel channel = channels.get(userId);
+            if (channel == null) {
+                // 没有连接时不查询计数
+                return;
+            }
+            try {
+                EventStats stats = eventStatsService.getStats(userId);
+                userMessages.forEach(channel::emit);
+                channel.emit(EventFeedMessage.stats(stats));
+            } catch (Exception e) {
+                log.warn("推送事件变更失败. [userId={}]", userId, e);
+            }
+        });
+    }
+
+    private static class Channel {
+        private final Sinks.Many<EventFeedMessage> sink = Sinks.many().multicast().directBestEffort();
+
+        // 只在channels.compute中修改
+        private int subscribers;
+
+        /**
+         * 多个请求线程可能同时推送，Sink要求串行调用
+         */
+        synchronized void emit(EventFeedMessage message) {
+            sink.tryEmitNext(message);
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.falldetection.backend.service;
+
+import cn.hutool.core.util.StrUtil;
+import com.falldetection.backend.config.EventImageConfig;
+import com.falldetection.backend.dto.ImageUploadDTO;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * 事件截图文件的读写
+ * 响应体优先交给Tomcat的sendfile由内核直接拷贝，不支持时用FileChannel.transferTo写出；
+ * 支持ETag/Last-Modified协商缓存和单段Range请求。
+ * 上传的截图按内容的SHA-256命名，相同内容只保存一份。同一文件可能被多个事件引用，请求处理中从不删除，
+ * 没有被任何事件引用的上传截图由EventImageSweepJob在宽限期后清理
+ */
+@Service
+@Slf4j
+public class EventImageStore {
+    // Tomcat的sendfile请求属性，见org.apache.catalina.Globals
+    private static final String SENDFILE_SUPPORTED_ATTR = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME_ATTR = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START_ATTR = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END_ATTR = "org.apache.tomcat.sendfile.end";
+
+    private static final byte[] JPEG_MAGIC = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF};
+    private static final String IMAGE_SUFFIX = ".jpg";
+    // 临时文件以.开头，resolve不会返回未写完的文件
+    private static final String UPLOAD_TMP_PREFIX = ".upload-";
+    // 上传的截图的文件名，检测程序保存的截图不会是这个格式
+    private static final Pattern UPLOAD_NAME = Pattern.compile("[0-9a-f]{64}\\.jpg");
+
+    private final EventImageConfig config;
+
+    private final Path dir;
+
+    public EventImageStore(EventImageConfig config) {
+        this.config = config;
+        this.dir = Paths.get(config.getDir()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 找到imageUrl对应的截图文件，只取URL最后一段文件名，在配置目录下查找
+     * @return 文件名不合法或文件不存在时返回null
+     */
+    public Path resolve(String imageUrl) {
+        if (StrUtil.isBlank(imageUrl)) {
+            return null;
+        }
+        String name = imageUrl.substring(imageUrl.lastIndexOf('/') + 1);
+        int query = name.indexOf('?');
+        if (query >= 0) {
+            name = name.substring(0, query);
+        }
+        if (name.isEmpty() || name.startsWith(".") || name.indexOf('\\') >= 0) {
+            return null;
+        }
+        Path file = dir.resolve(name).normalize();
+        if (!dir.equals(file.getParent()) || !Files.isRegularFile(file)) {
+            return null;
+        }
+        return file;
+    }
+
+    /**
+     * 保存上传的JPEG截图
+     * 边读边写入目录下的临时文件并计算摘要，写完后原子重命名为 <sha256>.jpg，已存在时直接丢弃临时文件
+     * @throws IllegalArgumentException 内容不是JPEG
+     */
+    public ImageUploadDTO store(InputStream in) throws IOException {
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, UPLOAD_TMP_PREFIX, ".tmp");
+        try {
+            MessageDigest digest = newSha256();
+            long size;
+            try (InputStream digestIn = new DigestInputStream(in, digest);
+                 OutputStream out = Files.newOutputStream(tmp)) {
+                byte[] head = digestIn.readNBytes(JPEG_MAGIC.length);
+                if (!Arrays.equals(head, JPEG_MAGIC)) {
+                    throw new IllegalArgumentException("只支持JPEG格式的截图");
+                }
+                out.write(head);
+                size = head.length + digestIn.transferTo(out);
+            }
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            String name = sha256 + IMAGE_SUFFIX;
+            Path target = dir.resolve(name);
+            boolean deduplicated = Files.exists(target);
+            if (deduplicated) {
+                // 刷新修改时间，清理任务按修改时间计算宽限期，不会删除刚被再次上传的文件
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+            } else {
+                // 临时文件默认只有所有者可读，检测程序等其他进程也需要读取
+                tmp.toFile().setReadable(true, false);
+                // 同一内容并发上传时后一次重命名覆盖前一次，内容相同
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            log.info("保存截图. [name={}, size={}, deduplicated={}]", name, size, deduplicated);
+            return new ImageUploadDTO(config.getUrlPrefix() + name, sha256, size, deduplicated);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * @return 修改时间早于before的上传截图（按<sha256>.jpg命名），检测程序保存的截图不在其中
+     */
+    public List<Path> listUploadsModifiedBefore(Instant before) throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        List<Path> uploads = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                if (UPLOAD_NAME.matcher(file.getFileName().toString()).matches()
+                        && Files.getLastModifiedTime(file).toInstant().isBefore(before)) {
+                    uploads.add(file);
+                }
+            }
+        }
+        return uploads;
+    }
+
+    /**
+     * 删除没有被引用的上传截图；删除前再确认修改时间仍早于before，期间被再次上传（去重命中）的文件保留
+     * @return 是否已删除
+     */
+    public boolean deleteIfModifiedBefore(Path file, Instant before) {
+        try {
+            if (!Files.getLastModifiedTime(file).toInstant().isBefore(before)) {
+                return false;
+            }
+            boolean deleted = Files.deleteIfExists(file);
+            if (deleted) {
+                log.info("删除未被引用的截图. [name={}]", file.getFileName());
+            }
+            return deleted;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            log.warn("删除未被引用的截图失败. [name={}]", file.getFileName(), e);
+            return false;
+        }
+    }
+
+    /**
+     * 把截图写到响应，处理If-None-Match/If-Modified-Since（304）和Range/If-Range（206/416）
+     */
+    public void write(Path file, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long length = attributes.size();
+        long lastModified = attributes.lastModifiedTime().toMillis();
+        // 截图写入后不再修改，大小+修改时间足以区分内容
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        // 只有请求者本人能访问，不允许共享缓存
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl
+                .maxAge(config.getCacheMaxAgeSeconds(), TimeUnit.SECONDS)
+                .cachePrivate()
+                .getHeaderValue());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return;
+        }
+        response.setContentType(MediaTypeFactory.getMediaType(file.getFileName().toString())
+                .orElse(MediaType.APPLICATION_OCTET_STREAM)
+                .toString());
+
+        long start = 0;
+        long end = length - 1;
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader != null && isRangeApplicable(request, etag, lastModified)) {
+            List<HttpRange> ranges;
+            try {
+                ranges = HttpRange.parseRanges(rangeHeader);
+            } catch (IllegalArgumentException e) {
+                // 格式不正确的Range按规范忽略，返回完整内容
+                ranges = List.of();
+            }
+            // 多段Range较少见，直接返回完整内容
+            if (ranges.size() == 1) {
+                start = ranges.get(0).getRangeStart(length);
+                end = ranges.get(0).getRangeEnd(length);
+                if (start >= length || start > end) {
+                    response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                    response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                    return;
+                }
+                response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+            }
+        }
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equals(request.getMethod()) || length == 0) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORTED_ATTR))) {
+            // 请求处理结束后由Tomcat从文件直接发送，结束位置不包含
+            request.setAttribute(SENDFILE_FILENAME_ATTR, file.toString());
+            request.setAttribute(SENDFILE_START_ATTR, start);
+            request.setAttribute(SENDFILE_END_ATTR, end + 1);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            while (position <= end) {
+                long transferred = channel.transferTo(position, end + 1 - position, out);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+            }
+        }
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * If-Range与当前版本一致（或没有If-Range）时才按Range返回部分内容
+     */
+    private static boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"") || ifRange.startsWith("W/")) {
+            // If-Range只接受强ETag比较
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
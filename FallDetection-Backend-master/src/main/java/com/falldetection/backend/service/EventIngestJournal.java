@@ -0,0 +1,309 @@
+package com.falldetection.backend.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.falldetection.backend.config.EventIngestConfig;
+import com.falldetection.backend.entity.Event;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 异步写入的事件日志
+ * <p>
+ * 事件入队前先追加到 journal-NNN.log（每行一条JSON，NNN为段内第一条的序号），写库成功后追加提交记录。
+ * 段文件超过 journalSegmentBytes 后滚动，段内事件全部提交后删除。启动时读取剩余的段，
+ * 未提交的事件交给EventIngestPipeline重新写入；写库后、提交记录落盘前崩溃的事件会被重复写入一次。
+ * 逐条写入仍失败的事件转存到 parked.log，需人工处理
+ */
+@Service
+@Slf4j
+public class EventIngestJournal {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String PARKED_FILE = "parked.log";
+
+    private final EventIngestConfig config;
+
+    private final ObjectMapper objectMapper;
+
+    private final Object lock = new Object();
+
+    private Path dir;
+
+    private long nextSeq = 1;
+
+    /** 磁盘上的段：段第一条的序号 -> 段内尚未提交的事件数 */
+    private final TreeMap<Long, Integer> pending = new TreeMap<>();
+
+    private long currentStart;
+    private FileChannel current;
+    private long currentBytes;
+
+    private List<Entry> recovered = Collections.emptyList();
+
+    public EventIngestJournal(EventIngestConfig config, ObjectMapper objectMapper) {
+        this.config = config;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void load() throws IOException {
+        if (!config.isAsync()) {
+            return;
+        }
+        dir = Paths.get(config.getJournalDir());
+        Files.createDirectories(dir);
+
+        Map<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX)) {
+                    segments.put(Long.parseLong(name.substring(SEGMENT_PREFIX.length(),
+                            name.length() - SEGMENT_SUFFIX.length())), file);
+                }
+            });
+        }
+
+        // seq -> (所在段, 事件)，读完所有段后去掉已提交的
+        Map<Long, Entry> appended = new LinkedHashMap<>();
+        Map<Long, Long> segmentOf = new TreeMap<>();
+        Set<Long> committed = new HashSet<>();
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            try (BufferedReader reader = Files.newBufferedReader(segment.getValue(), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    Record record;
+                    try {
+                        record = objectMapper.readValue(line, Record.class);
+                    } catch (IOException e) {
+                        // 末尾不完整的记录是写入中断留下的，对应的事件没有确认给客户端
+                        log.warn("忽略无法解析的事件日志记录. [file={}]", segment.getValue());
+                        continue;
+                    }
+                    if (record.getCommit() != null) {
+                        committed.addAll(record.getCommit());
+                    } else {
+                        appended.put(record.getSeq(), new Entry(record.getSeq(), record.getEvent()));
+                        segmentOf.put(record.getSeq(), segment.getKey());
+                    }
+                }
+            }
+            nextSeq = Math.max(nextSeq, segment.getKey());
+        }
+
+        List<Entry> unfinished = new ArrayList<>();
+        for (Entry entry : appended.values()) {
+            nextSeq = Math.max(nextSeq, entry.getSeq() + 1);
+            if (!committed.contains(entry.getSeq())) {
+                unfinished.add(entry);
+                pending.merge(segmentOf.get(entry.getSeq()), 1, Integer::sum);
+            }
+        }
+        for (Map.Entry<Long, Path> segment : segments.entrySet()) {
+            if (!pending.containsKey(segment.getKey())) {
+                Files.delete(segment.getValue());
+            }
+        }
+        recovered = unfinished;
+        log.info("加载事件日志. [segments={}, unfinished={}, nextSeq={}]", pending.size(), unfinished.size(), nextSeq);
+        openSegment();
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (lock) {
+            if (current != null) {
+                try {
+                    current.close();
+                } catch (IOException e) {
+                    log.warn("关闭事件日志失败", e);
+                }
+                current = null;
+            }
+        }
+    }
+
+    /**
+     * @return 上次运行留下的未提交事件（按序号排序），只能取一次
+     */
+    public List<Entry> takeRecovered() {
+        synchronized (lock) {
+            List<Entry> result = recovered;
+            recovered = Collections.emptyList();
+            return result;
+        }
+    }
+
+    /**
+     * 追加事件，返回时记录已写入磁盘（journalFsync为true时已fsync）
+     * @return 事件序号，写库或放弃后用于提交
+     */
+    public long append(Event event) throws IOException {
+        synchronized (lock) {
+            long seq = nextSeq++;
+            write(new Record(seq, event, null, null));
+            pending.merge(currentStart, 1, Integer::sum);
+            return seq;
+        }
+    }
+
+    /**
+     * 标记事件已处理（已写库、已转存或已放弃入队），重启后不再重放
+     */
+    public void commit(Collection<Long> seqs) {
+        if (seqs.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            try {
+                write(new Record(null, null, new ArrayList<>(seqs), null));
+            } catch (IOException e) {
+                log.warn("写入事件日志提交记录失败，重启后这些事件可能被重复写入. [seqs={}]", seqs, e);
+            }
+            for (Long seq : seqs) {
+                Long segment = pending.floorKey(seq);
+                if (segment != null) {
+                    pending.merge(segment, -1, Integer::sum);
+                }
+            }
+            // 已全部提交的旧段直接删除
+            pending.headMap(currentStart).entrySet().removeIf(segment -> {
+                if (segment.getValue() > 0) {
+                    return false;
+                }
+                deleteSegment(segment.getKey());
+                return true;
+            });
+            if (currentBytes >= config.getJournalSegmentBytes()) {
+                try {
+                    rollSegment();
+                } catch (IOException e) {
+                    log.warn("事件日志滚动失败", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 转存无法写入的事件，并提交它
+     */
+    public void park(Entry entry, Exception cause) {
+        Record record = new Record(entry.getSeq(), entry.getEvent(), null, String.valueOf(cause));
+        synchronized (lock) {
+            try (FileChannel parked = FileChannel.open(dir.resolve(PARKED_FILE),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                writeFully(parked, line(record));
+                parked.force(false);
+            } catch (IOException e) {
+                // 转存失败时不提交，事件留在日志中，下次启动时再试
+                log.error("转存事件失败. [seq={}]", entry.getSeq(), e);
+                return;
+            }
+            commit(List.of(entry.getSeq()));
+        }
+    }
+
+    private void write(Object record) throws IOException {
+        if (current == null) {
+            throw new IOException("事件日志未打开");
+        }
+        byte[] bytes = line(record);
+        writeFully(current, bytes);
+        if (config.getJournalFsync()) {
+            current.force(false);
+        }
+        currentBytes += bytes.length;
+    }
+
+    private byte[] line(Object record) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(record);
+        byte[] bytes = new byte[json.length + 1];
+        System.arraycopy(json, 0, bytes, 0, json.length);
+        bytes[json.length] = '\n';
+        return bytes;
+    }
+
+    private static void writeFully(FileChannel channel, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private void rollSegment() throws IOException {
+        current.close();
+        current = null;
+        if (pending.get(currentStart) == 0) {
+            pending.remove(currentStart);
+            deleteSegment(currentStart);
+        }
+        openSegment();
+    }
+
+    private void openSegment() throws IOException {
+        currentStart = nextSeq;
+        current = FileChannel.open(segmentFile(currentStart),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        currentBytes = current.size();
+        pending.putIfAbsent(currentStart, 0);
+    }
+
+    private void deleteSegment(long start) {
+        try {
+            Files.deleteIfExists(segmentFile(start));
+        } catch (IOException e) {
+            log.warn("删除事件日志段失败. [start={}]", start, e);
+        }
+    }
+
+    private Path segmentFile(long start) {
+        return dir.resolve(String.format("%s%012d%s", SEGMENT_PREFIX, start, SEGMENT_SUFFIX));
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Entry {
+        private long seq;
+        private Event event;
+    }
+
+    /**
+     * 日志中的一行：事件记录（seq、event），或提交记录（commit）；parked.log中另带error
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    static class Record {
+        private Long seq;
+        private Event event;
+        private List<Long> commit;
+        private String error;
+    }
+}
@@ -0,0 +1,232 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.EventIngestConfig;
+import com.falldetection.backend.entity.Event;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 事件异步写入管道
+ * saveEvent在async模式下先把事件追加到EventIngestJournal，再放入有界队列，由后台线程按数量或时间凑批后批量insert。
+ * 写库成功后提交日志；启动时先写入上次运行未写库的事件
+ */
+@Service
+@Slf4j
+public class EventIngestPipeline implements SmartLifecycle {
+
+    private final EventIngestConfig config;
+
+    private final BlockingQueue<EventIngestJournal.Entry> queue;
+
+    private final EventIngestJournal journal;
+
+    @Lazy
+    @Autowired
+    private IEventService eventService;
+
+    private final Timer flushTimer;
+    private final Counter flushedCounter;
+    private final Counter rejectedCounter;
+    private final Counter parkedCounter;
+
+    private volatile boolean running;
+    private Thread flusher;
+
+    public EventIngestPipeline(EventIngestConfig config, EventIngestJournal journal, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.journal = journal;
+        this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+        Gauge.builder("event.ingest.queue.depth", queue, BlockingQueue::size)
+                .description("等待批量写入的事件数")
+                .register(meterRegistry);
+        this.flushTimer = Timer.builder("event.ingest.flush.latency")
+                .description("单批事件写入耗时")
+                .register(meterRegistry);
+        this.flushedCounter = meterRegistry.counter("event.ingest.flushed");
+        this.rejectedCounter = meterRegistry.counter("event.ingest.rejected");
+        this.parkedCounter = meterRegistry.counter("event.ingest.parked");
+    }
+
+    @Override
+    public void start() {
+        if (!config.isAsync()) {
+            return;
+        }
+        running = true;
+        replay();
+        flusher = new Thread(this::runFlushLoop, "event-ingest-flusher");
+        flusher.start();
+        log.info("事件异步写入已启用. [capacity={}, batchSize={}, flushIntervalMs={}]",
+                config.getQueueCapacity(), config.getBatchSize(), config.getFlushIntervalMs());
+    }
+
+    /**
+     * 写入事件日志并放入写入队列，返回true时事件已落盘，可以确认给客户端
+     * @return false表示队列已满（背压）或日志写入失败，调用方应让客户端稍后重试
+     */
+    public boolean offer(Event event) {
+        if (!running) {
+            rejectedCounter.increment();
+            return false;
+        }
+        long seq;
+        try {
+            seq = journal.append(event);
+        } catch (IOException e) {
+            log.error("写入事件日志失败. [event={}]", event, e);
+            rejectedCounter.increment();
+            return false;
+        }
+        try {
+            if (queue.offer(new EventIngestJournal.Entry(seq, event), config.getOfferTimeoutMs(), TimeUnit.MILLISECONDS)) {
+                return true;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // 没有入队的事件不会确认给客户端，重启后也不应重放
+        journal.commit(List.of(seq));
+        rejectedCounter.increment();
+        return false;
+    }
+
+    @Override
+    public void stop() {
+        if (flusher == null) {
+            return;
+        }
+        // 停止接收新事件，flusher会把队列里剩余的事件写完再退出
+        running = false;
+        try {
+            flusher.join(TimeUnit.SECONDS.toMillis(30));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.warn("关闭时仍有{}个事件未写入，已保留在事件日志中，下次启动时写入", queue.size());
+        }
+        flusher = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return flusher != null;
+    }
+
+    /**
+     * 在Web服务器停止之后、数据源关闭之前停止，保证队列中的事件能写完
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 2048;
+    }
+
+    /**
+     * 写入上次运行留下的未提交事件，在flusher启动前同步完成
+     */
+    private void replay() {
+        List<EventIngestJournal.Entry> recovered = journal.takeRecovered();
+        if (recovered.isEmpty()) {
+            return;
+        }
+        log.info("重放事件日志中未写入的事件. [count={}]", recovered.size());
+        try {
+            for (int from = 0; from < recovered.size(); from += config.getBatchSize()) {
+                flush(new ArrayList<>(recovered.subList(from, Math.min(from + config.getBatchSize(), recovered.size()))));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runFlushLoop() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(config.getFlushIntervalMs());
+        while (running || !queue.isEmpty()) {
+            try {
+                EventIngestJournal.Entry first = queue.poll(config.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                List<EventIngestJournal.Entry> batch = new ArrayList<>(config.getBatchSize());
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < config.getBatchSize()) {
+                    long remaining = deadline - System.nanoTime();
+                    EventIngestJournal.Entry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, config.getBatchSize() - batch.size());
+                }
+                flush(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+    }
+
+    private void flush(List<EventIngestJournal.Entry> batch) throws InterruptedException {
+        List<Event> events = batch.stream().map(EventIngestJournal.Entry::getEvent).collect(Collectors.toList());
+        List<Long> seqs = batch.stream().map(EventIngestJournal.Entry::getSeq).collect(Collectors.toList());
+        int attempt = 0;
+        while (true) {
+            try {
+                flushTimer.record(() -> eventService.saveEventBatch(events));
+                flushedCounter.increment(batch.size());
+                journal.commit(seqs);
+                return;
+            } catch (DataAccessResourceFailureException e) {
+                // 数据库不可用时不消耗重试次数；关闭时还没恢复的事件留在日志中，下次启动时写入
+                events.forEach(event -> event.setId(null));
+                if (!running) {
+                    log.error("数据库不可用，{}个事件留在事件日志中", batch.size(), e);
+                    return;
+                }
+                log.warn("数据库不可用，稍后重试. [size={}]", batch.size(), e);
+                TimeUnit.MILLISECONDS.sleep(Math.min(config.getFlushIntervalMs() * 10, 5000));
+            } catch (Exception e) {
+                events.forEach(event -> event.setId(null));
+                if (++attempt > config.getMaxRetries()) {
+                    break;
+                }
+                log.warn("批量写入事件失败. [size={}, attempt={}]", batch.size(), attempt, e);
+                TimeUnit.MILLISECONDS.sleep(config.getFlushIntervalMs() * attempt);
+            }
+        }
+
+        // 整批多次失败：逐条写入，只转存写不进去的事件，不连累同批的其它事件
+        for (EventIngestJournal.Entry entry : batch) {
+            try {
+                eventService.saveEventBatch(List.of(entry.getEvent()));
+                flushedCounter.increment();
+                journal.commit(List.of(entry.getSeq()));
+            } catch (DataAccessResourceFailureException e) {
+                entry.getEvent().setId(null);
+                log.error("数据库不可用，事件留在事件日志中. [seq={}]", entry.getSeq(), e);
+            } catch (Exception e) {
+                entry.getEvent().setId(null);
+                journal.park(entry, e);
+                parkedCounter.increment();
+                log.error("事件写入失败，已转存. [seq={}, event={}]", entry.getSeq(), entry.getEvent(), e);
+            }
+        }
+    }
+}
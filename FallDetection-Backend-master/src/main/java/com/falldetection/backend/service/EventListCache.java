@@ -0,0 +1,134 @@
+package com.falldetection.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.falldetection.backend.utils.RedisConstants.CACHE_EVENT_LIST_KEY;
+import static com.falldetection.backend.utils.RedisConstants.CACHE_EVENT_LIST_PAGES;
+import static com.falldetection.backend.utils.RedisConstants.CACHE_EVENT_LIST_TTL;
+import static com.falldetection.backend.utils.RedisConstants.CACHE_EVENT_VERSION_KEY;
+
+/**
+ * 事件列表前几页的Redis缓存
+ * 缓存key中带有用户的版本号，事件写入/删除后只需递增版本号，旧版本的缓存不会再被读到，随TTL过期
+ */
+@Service
+@Slf4j
+public class EventListCache {
+
+    /** 一次往返读取当前版本号和该版本下的缓存页，返回 {version, json} */
+    private static final DefaultRedisScript<List> GET_SCRIPT = new DefaultRedisScript<>(
+            "local v = redis.call('GET', KEYS[1]) or '0' " +
+                    "return {v, redis.call('GET', ARGV[1] .. v .. ARGV[2])}",
+            List.class);
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public EventListCache(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper,
+                          MeterRegistry meterRegistry) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.hitCounter = meterRegistry.counter("event.list.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("event.list.cache.requests", "result", "miss");
+        Gauge.builder("event.list.cache.hit.ratio", this, EventListCache::hitRatio)
+                .description("事件列表缓存命中率")
+                .register(meterRegistry);
+    }
+
+    public boolean isCacheable(int page) {
+        return page <= CACHE_EVENT_LIST_PAGES;
+    }
+
+    /**
+     * 读取缓存页
+     * @return 命中时 value 不为null；未命中时返回的version用于随后的put
+     */
+    public Lookup get(Long userId, int page, int size) {
+        try {
+            List<?> result = stringRedisTemplate.execute(GET_SCRIPT,
+                    List.of(CACHE_EVENT_VERSION_KEY + userId),
+                    CACHE_EVENT_LIST_KEY + userId + ":", ":" + page + ":" + size);
+            String version = result == null || result.isEmpty() ? "0" : String.valueOf(result.get(0));
+            Object json = result == null || result.size() < 2 ? null : result.get(1);
+            if (json != null) {
+                hitCounter.increment();
+                return new Lookup(version, objectMapper.readValue(json.toString(), Object.class));
+            }
+            missCounter.increment();
+            return new Lookup(version, null);
+        } catch (Exception e) {
+            log.warn("读取事件列表缓存失败. [userId={}]", userId, e);
+            missCounter.increment();
+            return null;
+        }
+    }
+
+    public void put(Long userId, String version, int page, int size, Object value) {
+        try {
+            String key = CACHE_EVENT_LIST_KEY + userId + ":" + version + ":" + page + ":" + size;
+            stringRedisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(value),
+                    CACHE_EVENT_LIST_TTL, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入事件列表缓存失败. [userId={}]", userId, e);
+        }
+    }
+
+    /**
+     * 使用户的缓存失效，在事务中调用时等到提交之后再递增版本号，避免读到未提交前的数据后又写回缓存
+     */
+    public void invalidate(Collection<Long> userIds) {
+        Set<Long> distinct = Set.copyOf(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bumpVersions(distinct);
+                }
+            });
+        } else {
+            bumpVersions(distinct);
+        }
+    }
+
+    private void bumpVersions(Set<Long> userIds) {
+        try {
+            for (Long userId : userIds) {
+                stringRedisTemplate.opsForValue().increment(CACHE_EVENT_VERSION_KEY + userId);
+            }
+        } catch (Exception e) {
+            // 版本号未能递增时旧缓存最多保留到TTL
+            log.error("事件列表缓存失效失败. [userIds={}]", userIds, e);
+        }
+    }
+
+    private double hitRatio() {
+        double total = hitCounter.count() + missCounter.count();
+        return total == 0 ? 0 : hitCounter.count() / total;
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class Lookup {
+        private String version;
+        private Object value;
+    }
+}
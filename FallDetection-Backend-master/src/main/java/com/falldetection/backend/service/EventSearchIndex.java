@@ -0,0 +1,691 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.EventSearchConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.dto.EventSearchDTO;
+import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.mapper.EventMapper;
+import com.falldetection.backend.mapper.EventStatsMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 事件问答记录的进程内倒排索引，按用户隔离，使用BM25排序
+ * <p>
+ * 英文和数字按单词切分（去掉撇号，can't 与 cant 等价），中日韩文字按单字和相邻二字切分。
+ * 内存中只保存倒排表（词 -> 事件 -> 词频）、文档长度和列表展示需要的字段，不保存问答原文。
+ * 索引变更在事务提交后追加到 index.log，启动时回放；日志中无效记录过多时整体重写。
+ * 没有索引日志时在后台从fall_events和归档中全量构建，构建期间的变更先暂存，构建完成后按顺序重放；
+ * 构建失败时按 buildRetrySeconds 退避重试，直到成功
+ */
+@Service
+@Slf4j
+public class EventSearchIndex {
+    private static final String JOURNAL_FILE = "index.log";
+    /** 日志文件头，记录格式变化时修改，不匹配的日志丢弃后重新构建 */
+    private static final int JOURNAL_VERSION = 0x45534902;
+    private static final byte OP_ADD = 1;
+    private static final byte OP_REMOVE = 2;
+
+    private static final double BM25_K1 = 1.2;
+    private static final double BM25_B = 0.75;
+
+    private static final long MAX_RETRY_SECONDS = 3600;
+
+    @Autowired
+    private EventSearchConfig config;
+
+    @Autowired
+    private EventMapper eventMapper;
+
+    @Autowired
+    private EventStatsMapper eventStatsMapper;
+
+    @Autowired
+    private EventArchiveStore eventArchiveStore;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private final Map<Long, UserIndex> users = new ConcurrentHashMap<>();
+
+    private final Object journalLock = new Object();
+
+    /** 全量构建完成前为null，构建结束时把内存中的索引一并写入日志 */
+    private DataOutputStream journal;
+
+    private final Object buildLock = new Object();
+
+    /**
+     * 全量构建期间暂存的变更，为null表示没有在构建
+     * 修改类型等变更只带部分字段，直接作用到构建中的索引会被当成新文档，丢失问答文本
+     */
+    private List<Runnable> buildBacklog;
+
+    private Thread builder;
+
+    private volatile boolean closed;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!config.getEnabled()) {
+            return;
+        }
+        Path journalFile = Paths.get(config.getDir(), JOURNAL_FILE);
+        if (Files.exists(journalFile)) {
+            try {
+                replay(journalFile);
+                return;
+            } catch (IOException e) {
+                log.error("加载搜索索引失败，重新构建", e);
+                users.clear();
+            }
+        }
+        synchronized (buildLock) {
+            buildBacklog = new ArrayList<>();
+        }
+        builder = new Thread(this::buildAll, "event-search-build");
+        builder.setDaemon(true);
+        builder.start();
+    }
+
+    @PreDestroy
+    public void close() {
+        closed = true;
+        if (builder != null) {
+            builder.interrupt();
+        }
+        synchronized (journalLock) {
+            if (journal != null) {
+                try {
+                    journal.close();
+                } catch (IOException e) {
+                    log.warn("关闭搜索索引日志失败", e);
+                }
+                journal = null;
+            }
+        }
+    }
+
+    /**
+     * 事件写入（或修改）后更新索引，在事务提交后生效
+     */
+    public void onEventsSaved(Collection<Event> events) {
+        if (!config.getEnabled()) {
+            return;
+        }
+        List<Doc> docs = new ArrayList<>(events.size());
+        for (Event event : events) {
+            if (event.getId() != null && event.getUserId() != null) {
+                docs.add(toDoc(event));
+            }
+        }
+        afterCommit(() -> apply(() -> docs.forEach(this::add)));
+    }
+
+    /**
+     * 事件删除后更新索引，在事务提交后生效
+     */
+    public void onEventsRemoved(Collection<Event> events) {
+        if (!config.getEnabled()) {
+            return;
+        }
+        Map<Long, List<Long>> removed = new HashMap<>();
+        for (Event event : events) {
+            if (event.getId() != null && event.getUserId() != null) {
+                removed.computeIfAbsent(event.getUserId(), id -> new ArrayList<>()).add(event.getId());
+            }
+        }
+        afterCommit(() -> apply(() -> removed.forEach(this::remove)));
+    }
+
+    /**
+     * @return 按相关度排序的事件，索引未启用时为空
+     */
+    public List<EventSearchDTO> search(Long userId, String query, int limit) {
+        UserIndex index = users.get(userId);
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query, true)));
+        if (index == null || terms.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return index.search(terms, Math.min(limit, config.getMaxResults()));
+    }
+
+    /**
+     * 构建期间暂存变更，否则直接执行
+     */
+    private void apply(Runnable mutation) {
+        synchronized (buildLock) {
+            if (buildBacklog != null) {
+                buildBacklog.add(mutation);
+                return;
+            }
+        }
+        mutation.run();
+    }
+
+    private void add(Doc doc) {
+        Doc stored = users.computeIfAbsent(doc.getUserId(), id -> new UserIndex()).add(doc);
+        appendJournal(stored, OP_ADD);
+    }
+
+    private void remove(Long userId, List<Long> eventIds) {
+        UserIndex index = users.get(userId);
+        if (index != null) {
+            index.remove(eventIds);
+        }
+        for (Long eventId : eventIds) {
+            appendJournal(new Doc(userId, eventId, null, null, null, null, 0), OP_REMOVE);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private void appendJournal(Doc doc, byte op) {
+        synchronized (journalLock) {
+            if (journal == null) {
+                return;
+            }
+            try {
+                writeRecord(journal, doc, op);
+                journal.flush();
+            } catch (IOException e) {
+                // 索引可以从数据库重建，写日志失败不影响事件本身
+                log.error("写入搜索索引日志失败. [eventId={}]", doc.getEventId(), e);
+            }
+        }
+    }
+
+    /**
+     * 先把日志折叠成每个事件的最终状态再建索引，删除和修改不需要遍历倒排表
+     */
+    private void replay(Path journalFile) throws IOException {
+        long records = 0;
+        Map<Long, Map<Long, Doc>> folded = new HashMap<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(journalFile)))) {
+            if (Files.size(journalFile) > 0 && in.readInt() != JOURNAL_VERSION) {
+                throw new IOException("搜索索引日志格式不匹配");
+            }
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    break;
+                }
+                try {
+                    Long userId = in.readLong();
+                    Long eventId = in.readLong();
+                    Map<Long, Doc> docs = folded.computeIfAbsent(userId, id -> new HashMap<>());
+                    if (op == OP_REMOVE) {
+                        docs.remove(eventId);
+                    } else {
+                        long ts = in.readLong();
+                        int eventType = in.readInt();
+                        Doc doc = new Doc(userId, eventId,
+                                ts == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(ts, 0, ZoneOffset.UTC),
+                                eventType < 0 ? null : eventType, readString(in), readFrequencies(in), 0);
+                        Doc previous = docs.get(eventId);
+                        if (doc.getFrequencies() == null && previous != null) {
+                            doc.setFrequencies(previous.getFrequencies());
+                        }
+                        docs.put(eventId, doc);
+                    }
+                    records++;
+                } catch (EOFException e) {
+                    // 进程退出时写了一半的记录
+                    log.warn("搜索索引日志末尾记录不完整，已忽略");
+                    break;
+                }
+            }
+        }
+        folded.forEach((userId, docs) -> {
+            UserIndex index = users.computeIfAbsent(userId, id -> new UserIndex());
+            docs.values().forEach(index::add);
+        });
+        long live = users.values().stream().mapToLong(UserIndex::size).sum();
+        log.info("加载搜索索引. [users={}, docs={}, records={}]", users.size(), live, records);
+        if (records > live * config.getCompactRatio()) {
+            rewriteJournal();
+        } else {
+            openJournal();
+        }
+    }
+
+    private void buildAll() {
+        long delay = config.getBuildRetrySeconds();
+        while (!closed) {
+            try {
+                buildOnce();
+                finishBuild(true);
+                log.info("搜索索引构建完成. [users={}]", users.size());
+                return;
+            } catch (Exception e) {
+                if (closed) {
+                    break;
+                }
+                log.error("搜索索引构建失败，{}秒后重试", delay, e);
+            }
+            try {
+                TimeUnit.SECONDS.sleep(delay);
+            } catch (InterruptedException e) {
+                break;
+            }
+            delay = Math.min(delay * 2, MAX_RETRY_SECONDS);
+        }
+        finishBuild(false);
+    }
+
+    /**
+     * 每次都从空索引开始；失败前已加入的文档被丢弃，期间的变更仍在暂存中，不会丢失
+     */
+    private void buildOnce() {
+        users.clear();
+        LocalDateTime watermark = eventArchiveStore.getWatermark();
+        Set<Long> userIds = new LinkedHashSet<>(eventStatsMapper.selectEventUserIds());
+        userIds.addAll(eventArchiveStore.getArchivedUserIds());
+        for (Long userId : userIds) {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Cursor<Event> cursor = eventMapper.streamByUser(userId, watermark)) {
+                    cursor.forEach(this::addFromBuild);
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            if (watermark != null) {
+                int page = 256;
+                for (long skip = 0; ; skip += page) {
+                    List<Event> events = eventArchiveStore.readPage(userId, skip, page);
+                    if (events.isEmpty()) {
+                        break;
+                    }
+                    events.forEach(this::addFromBuild);
+                }
+            }
+        }
+    }
+
+    /**
+     * 在构建结果上按顺序重放暂存的变更，再写日志；持有buildLock期间新的变更会等待，保证不被跳过或乱序
+     */
+    private void finishBuild(boolean writeJournal) {
+        synchronized (buildLock) {
+            List<Runnable> backlog = buildBacklog;
+            buildBacklog = null;
+            if (backlog == null) {
+                return;
+            }
+            backlog.forEach(Runnable::run);
+            if (writeJournal) {
+                try {
+                    rewriteJournal();
+                } catch (IOException e) {
+                    log.error("写入搜索索引日志失败", e);
+                }
+            }
+            log.info("重放构建期间的索引变更. [mutations={}]", backlog.size());
+        }
+    }
+
+    private void addFromBuild(Event event) {
+        users.computeIfAbsent(event.getUserId(), id -> new UserIndex()).add(toDoc(event));
+    }
+
+    /**
+     * 把当前内存中的全部文档写成新的日志，替换旧日志
+     */
+    private void rewriteJournal() throws IOException {
+        synchronized (journalLock) {
+            Path dir = Paths.get(config.getDir());
+            Files.createDirectories(dir);
+            Path tmp = dir.resolve(JOURNAL_FILE + ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(JOURNAL_VERSION);
+                for (UserIndex index : users.values()) {
+                    for (Doc doc : index.snapshot()) {
+                        writeRecord(out, doc, OP_ADD);
+                    }
+                }
+            }
+            if (journal != null) {
+                journal.close();
+            }
+            Files.move(tmp, dir.resolve(JOURNAL_FILE), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+            openJournal();
+        }
+    }
+
+    private void openJournal() throws IOException {
+        synchronized (journalLock) {
+            Path journalFile = Paths.get(config.getDir(), JOURNAL_FILE);
+            boolean empty = !Files.exists(journalFile) || Files.size(journalFile) == 0;
+            journal = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(
+                    journalFile, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+            if (empty) {
+                journal.writeInt(JOURNAL_VERSION);
+                journal.flush();
+            }
+        }
+    }
+
+    private static void writeRecord(DataOutputStream out, Doc doc, byte op) throws IOException {
+        out.writeByte(op);
+        out.writeLong(doc.getUserId());
+        out.writeLong(doc.getEventId());
+        if (op == OP_ADD) {
+            out.writeLong(doc.getTimestamp() == null ? Long.MIN_VALUE : doc.getTimestamp().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(doc.getEventType() == null ? -1 : doc.getEventType());
+            writeString(out, doc.getImageUrl());
+            writeFrequencies(out, doc.getFrequencies());
+        }
+    }
+
+    /**
+     * 写入词频，null写成-1，表示沿用已有文档的词频
+     */
+    private static void writeFrequencies(DataOutputStream out, Map<String, Integer> frequencies) throws IOException {
+        if (frequencies == null) {
+            out.writeInt(-1);
+            return;
+        }
+        out.writeInt(frequencies.size());
+        for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            writeString(out, entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    private static Map<String, Integer> readFrequencies(DataInputStream in) throws IOException {
+        int size = in.readInt();
+        if (size < 0) {
+            return null;
+        }
+        Map<String, Integer> frequencies = new HashMap<>(size * 2);
+        for (int i = 0; i < size; i++) {
+            frequencies.put(readString(in), in.readInt());
+        }
+        return frequencies;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static Doc toDoc(Event event) {
+        if (event.getDialog() == null) {
+            // 未查询dialog列，例如批量修改类型
+            return new Doc(event.getUserId(), event.getId(), event.getTimestamp(), event.getEventType(),
+                    event.getImageUrl(), null, 0);
+        }
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (ChatDialog dialog : event.getDialog()) {
+            tokenize(dialog.getQuestion(), false).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+            tokenize(dialog.getAnswer(), false).forEach(term -> frequencies.merge(term, 1, Integer::sum));
+        }
+        return new Doc(event.getUserId(), event.getId(), event.getTimestamp(), event.getEventType(),
+                event.getImageUrl(), frequencies, 0);
+    }
+
+    /**
+     * 切分文本
+     * @param query 为true时中日韩文字只在单字查询时使用单字，其余使用二字，减少候选文档
+     */
+    static List<String> tokenize(String text, boolean query) {
+        List<String> terms = new ArrayList<>();
+        if (text == null) {
+            return terms;
+        }
+        StringBuilder word = new StringBuilder();
+        List<String> cjk = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            int cp = text.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flushWord(word, terms);
+                cjk.add(new String(Character.toChars(cp)));
+            } else if (Character.isLetterOrDigit(cp)) {
+                flushCjk(cjk, terms, query);
+                word.appendCodePoint(Character.toLowerCase(cp));
+            } else if ((cp == '\'' || cp == '’') && word.length() > 0) {
+                // 撇号不断开单词
+                continue;
+            } else {
+                flushWord(word, terms);
+                flushCjk(cjk, terms, query);
+            }
+        }
+        flushWord(word, terms);
+        flushCjk(cjk, terms, query);
+        return terms;
+    }
+
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA || script == Character.UnicodeScript.HANGUL;
+    }
+
+    private static void flushWord(StringBuilder word, List<String> terms) {
+        if (word.length() > 0) {
+            terms.add(word.toString());
+            word.setLength(0);
+        }
+    }
+
+    private static void flushCjk(List<String> chars, List<String> terms, boolean query) {
+        if (chars.isEmpty()) {
+            return;
+        }
+        if (!query || chars.size() == 1) {
+            terms.addAll(chars);
+        }
+        for (int i = 0; i + 1 < chars.size(); i++) {
+            terms.add(chars.get(i) + chars.get(i + 1));
+        }
+        chars.clear();
+    }
+
+    /**
+     * 索引中保存的文档只有展示字段和长度；frequencies只在写入索引和日志的途中携带，
+     * 为null表示沿用已有文档的词频（只修改了部分字段）
+     */
+    @Data
+    @AllArgsConstructor
+    private static class Doc {
+        private Long userId;
+        private Long eventId;
+        private LocalDateTime timestamp;
+        private Integer eventType;
+        private String imageUrl;
+        private Map<String, Integer> frequencies;
+        private int length;
+    }
+
+    /**
+     * 单个用户的索引：term -> (eventId -> 词频)
+     */
+    private static class UserIndex {
+        private final Map<String, Map<Long, Integer>> postings = new HashMap<>();
+        private final Map<Long, Doc> docs = new HashMap<>();
+        private long totalLength;
+
+        synchronized int size() {
+            return docs.size();
+        }
+
+        /**
+         * 从倒排表还原每个文档的词频，只在重写日志时使用
+         */
+        synchronized List<Doc> snapshot() {
+            Map<Long, Map<String, Integer>> frequencies = new HashMap<>();
+            postings.forEach((term, list) -> list.forEach((eventId, tf) ->
+                    frequencies.computeIfAbsent(eventId, id -> new HashMap<>()).put(term, tf)));
+            List<Doc> result = new ArrayList<>(docs.size());
+            for (Doc doc : docs.values()) {
+                result.add(new Doc(doc.getUserId(), doc.getEventId(), doc.getTimestamp(), doc.getEventType(),
+                        doc.getImageUrl(), frequencies.getOrDefault(doc.getEventId(), new HashMap<>()), doc.getLength()));
+            }
+            return result;
+        }
+
+        /**
+         * @return 补全后用于写日志的文档，imageUrl为null时沿用已有文档的值
+         */
+        synchronized Doc add(Doc doc) {
+            Long eventId = doc.getEventId();
+            Doc previous = docs.get(eventId);
+            if (doc.getImageUrl() == null && previous != null) {
+                doc.setImageUrl(previous.getImageUrl());
+            }
+            if (previous != null) {
+                totalLength -= previous.getLength();
+            }
+            if (doc.getFrequencies() == null) {
+                doc.setLength(previous == null ? 0 : previous.getLength());
+            } else {
+                if (previous != null) {
+                    removePostings(Collections.singleton(eventId));
+                }
+                int length = 0;
+                for (Map.Entry<String, Integer> entry : doc.getFrequencies().entrySet()) {
+                    postings.computeIfAbsent(entry.getKey(), k -> new HashMap<>()).put(eventId, entry.getValue());
+                    length += entry.getValue();
+                }
+                doc.setLength(length);
+            }
+            totalLength += doc.getLength();
+            docs.put(eventId, new Doc(doc.getUserId(), eventId, doc.getTimestamp(), doc.getEventType(),
+                    doc.getImageUrl(), null, doc.getLength()));
+            return doc;
+        }
+
+        synchronized void remove(Collection<Long> eventIds) {
+            Set<Long> removed = new HashSet<>();
+            for (Long eventId : eventIds) {
+                Doc doc = docs.remove(eventId);
+                if (doc != null) {
+                    totalLength -= doc.getLength();
+                    removed.add(eventId);
+                }
+            }
+            if (!removed.isEmpty()) {
+                removePostings(removed);
+            }
+        }
+
+        /**
+         * 文档不保存自己的词表，遍历整个倒排表清除；批量删除只遍历一次
+         */
+        private void removePostings(Set<Long> eventIds) {
+            Iterator<Map<Long, Integer>> lists = postings.values().iterator();
+            while (lists.hasNext()) {
+                Map<Long, Integer> list = lists.next();
+                list.keySet().removeAll(eventIds);
+                if (list.isEmpty()) {
+                    lists.remove();
+                }
+            }
+        }
+        synchronized List<EventSearchDTO> search(List<String> terms, int limit) {
+            int n = docs.size();
+            double avgLength = n == 0 ? 0 : (double) totalLength / n;
+            Map<Long, Double> scores = new HashMap<>();
+            for (String term : terms) {
+                Map<Long, Integer> list = postings.get(term);
+                if (list == null) {
+                    continue;
+                }
+                double idf = Math.log(1 + (n - list.size() + 0.5) / (list.size() + 0.5));
+                list.forEach((eventId, tf) -> {
+                    double norm = BM25_K1 * (1 - BM25_B + BM25_B * docs.get(eventId).getLength() / avgLength);
+                    scores.merge(eventId, idf * tf * (BM25_K1 + 1) / (tf + norm), Double::sum);
+                });
+            }
+            // 最小堆保留得分最高的limit个
+            PriorityQueue<Map.Entry<Long, Double>> top = new PriorityQueue<>(Map.Entry.comparingByValue());
+            for (Map.Entry<Long, Double> entry : scores.entrySet()) {
+                top.offer(entry);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+            List<EventSearchDTO> result = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                Map.Entry<Long, Double> entry = top.poll();
+                Doc doc = docs.get(entry.getKey());
+                result.add(new EventSearchDTO(doc.getEventId(), doc.getTimestamp(), doc.getEventType(),
+                        doc.getImageUrl(), entry.getValue()));
+            }
+            // 堆中按得分升序弹出
+            Collections.reverse(result);
+            return result;
+        }
+    }
+}
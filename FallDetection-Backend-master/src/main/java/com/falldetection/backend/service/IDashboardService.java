@@ -0,0 +1,7 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.dto.Result;
+
+public interface IDashboardService {
+    Result getDashboard();
+}
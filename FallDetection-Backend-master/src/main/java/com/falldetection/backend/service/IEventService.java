@@ -1,18 +1,48 @@
 package com.falldetection.backend.service;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import com.baomidou.mybatisplus.extension.service.IService;
 import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.dto.EventBatchRequest;
 import com.falldetection.backend.dto.Result;
 import com.falldetection.backend.entity.Event;
 
 public interface IEventService extends IService<Event> {
     Result getEventList(Integer page, Integer size);
 
+    Result getEventListByCursor(String cursor, Integer size);
+
+    Result getEventDialog(Long id, LocalDateTime timestamp);
+
+    String getEventImageUrl(Long userId, Long id);
+
+    Result attachEventImage(Long id, String imageUrl);
+
     Result saveEvent(String sessionId, Integer eventType, String imageUrl);
 
-    Result deleteEvent(Long id);
+    void saveEventBatch(List<Event> events);
+
+    Result deleteEvent(Long id, LocalDateTime timestamp);
+
+    Result deleteEvents(EventBatchRequest request);
+
+    Result relabelEvents(EventBatchRequest request);
 
     Result getEventStats();
+
+    Result getEventTimeline(LocalDateTime from, LocalDateTime to, String granularity);
+
+    Result searchEvents(String q, Integer limit);
+
+    void exportEvents(Long userId, String format, OutputStream out) throws IOException;
+
+    /**
+     * 事件被整体删除（如按保留期删除分区）而没有经过deleteEvent时调用，
+     * 同步搜索索引、列表缓存、仪表盘缓存和SSE推送；计数由调用方重建
+     */
+    void onEventsPurged(List<Event> removed);
 }
@@ -0,0 +1,22 @@
+package com.falldetection.backend.service;
+
+import com.baomidou.mybatisplus.extension.service.IService;
+import com.falldetection.backend.dto.EventTimelineDTO;
+import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.entity.EventStats;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+public interface IEventStatsService extends IService<EventStats> {
+    EventStats getStats(Long userId);
+
+    void onEventsSaved(Collection<Event> events);
+
+    void onEventsRemoved(Collection<Event> events);
+
+    List<EventTimelineDTO> getTimeline(Long userId, String granularity, LocalDateTime from, LocalDateTime to);
+
+    void rebuildAll();
+}
@@ -0,0 +1,227 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.ChatSessionConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天会话的问答记录保存在本实例内存中（chat.session.store=memory，默认）
+ * 会话按最近访问排序，空闲超过idleTtlSeconds、会话数超过maxSessions或估算字节数超过maxBytes时，
+ * 从最久未使用的会话开始淘汰，并通知EvictionListener
+ */
+@Service
+@ConditionalOnProperty(prefix = "chat.session", name = "store", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class MemoryChatSessionRepository implements ChatSessionRepository {
+    // 估算用：每个会话和每轮问答的对象开销，字符按UTF-16计
+    private static final long SESSION_OVERHEAD_BYTES = 128;
+    private static final long TURN_OVERHEAD_BYTES = 96;
+
+    public enum EvictionCause {
+        /** 空闲超时 */
+        EXPIRED,
+        /** 超过会话数上限 */
+        COUNT,
+        /** 超过字节数上限 */
+        SIZE
+    }
+
+    @FunctionalInterface
+    public interface EvictionListener {
+        void onEvicted(String sessionId, List<ChatDialog> turns, EvictionCause cause);
+    }
+
+    private static class Session {
+        private final List<ChatDialog> turns = new ArrayList<>();
+        private long bytes = SESSION_OVERHEAD_BYTES;
+        private long lastAccess;
+    }
+
+    @AllArgsConstructor
+    private static class Evicted {
+        private final String sessionId;
+        private final Session session;
+        private final EvictionCause cause;
+    }
+
+    private final ChatSessionConfig config;
+    private final long idleTtlNanos;
+
+    // accessOrder为true，迭代顺序即最久未使用在前；所有访问都在this上同步
+    private final LinkedHashMap<String, Session> sessions = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    private final List<EvictionListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<EvictionCause, Counter> evictionCounters = new EnumMap<>(EvictionCause.class);
+
+    public MemoryChatSessionRepository(ChatSessionConfig config, MeterRegistry meterRegistry) {
+        this.config = config;
+        this.idleTtlNanos = TimeUnit.SECONDS.toNanos(config.getIdleTtlSeconds());
+        Gauge.builder("chat.session.live", this, MemoryChatSessionRepository::size)
+                .description("内存中的聊天会话数")
+                .register(meterRegistry);
+        Gauge.builder("chat.session.bytes", this, MemoryChatSessionRepository::retainedBytes)
+                .description("聊天会话问答记录的估算字节数")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        for (EvictionCause cause : EvictionCause.values()) {
+            evictionCounters.put(cause,
+                    meterRegistry.counter("chat.session.evictions", "cause", cause.name().toLowerCase()));
+        }
+    }
+
+    public void addEvictionListener(EvictionListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public List<ChatDialog> getTurns(String sessionId) {
+        List<ChatDialog> expired = null;
+        List<ChatDialog> turns;
+        synchronized (this) {
+            Session session = sessions.get(sessionId);
+            if (session == null) {
+                return new ArrayList<>();
+            }
+            long now = System.nanoTime();
+            if (now - session.lastAccess > idleTtlNanos) {
+                removeLocked(sessionId);
+                expired = session.turns;
+                turns = new ArrayList<>();
+            } else {
+                session.lastAccess = now;
+                turns = new ArrayList<>(session.turns);
+            }
+        }
+        if (expired != null) {
+            notifyEvicted(sessionId, expired, EvictionCause.EXPIRED);
+        }
+        return turns;
+    }
+
+    /**
+     * 追加一轮问答，必要时淘汰最久未使用的会话
+     */
+    @Override
+    public void appendTurn(String sessionId, ChatDialog turn) {
+        List<Evicted> evicted = new ArrayList<>();
+        synchronized (this) {
+            Session session = sessions.get(sessionId);
+            long now = System.nanoTime();
+            if (session != null && now - session.lastAccess > idleTtlNanos) {
+                removeLocked(sessionId);
+                evicted.add(new Evicted(sessionId, session, EvictionCause.EXPIRED));
+                session = null;
+            }
+            if (session == null) {
+                session = new Session();
+                sessions.put(sessionId, session);
+                totalBytes += session.bytes;
+            }
+            session.lastAccess = now;
+            long bytes = estimate(turn);
+            session.turns.add(turn);
+            session.bytes += bytes;
+            totalBytes += bytes;
+            while (session.turns.size() > config.getMaxTurns()) {
+                long dropped = estimate(session.turns.remove(0));
+                session.bytes -= dropped;
+                totalBytes -= dropped;
+            }
+
+            Iterator<Map.Entry<String, Session>> eldest = sessions.entrySet().iterator();
+            while (eldest.hasNext()) {
+                EvictionCause cause = sessions.size() > config.getMaxSessions() ? EvictionCause.COUNT
+                        : totalBytes > config.getMaxBytes() ? EvictionCause.SIZE : null;
+                if (cause == null) {
+                    break;
+                }
+                Map.Entry<String, Session> entry = eldest.next();
+                eldest.remove();
+                totalBytes -= entry.getValue().bytes;
+                evicted.add(new Evicted(entry.getKey(), entry.getValue(), cause));
+            }
+        }
+        evicted.forEach(e -> notifyEvicted(e.sessionId, e.session.turns, e.cause));
+    }
+
+    @Override
+    public synchronized void remove(String sessionId) {
+        removeLocked(sessionId);
+    }
+
+    public synchronized int size() {
+        return sessions.size();
+    }
+
+    public synchronized long retainedBytes() {
+        return totalBytes;
+    }
+
+    /**
+     * 定期清除空闲超时的会话，没有再被访问的会话不会在getTurns/appendTurn中被发现
+     */
+    @Scheduled(fixedDelayString = "${chat.session.sweep-interval-ms:60000}")
+    public void evictExpired() {
+        Map<String, Session> expired = new LinkedHashMap<>();
+        synchronized (this) {
+            long now = System.nanoTime();
+            Iterator<Map.Entry<String, Session>> it = sessions.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Session> entry = it.next();
+                // 按访问顺序迭代，遇到未过期的会话后面的都未过期
+                if (now - entry.getValue().lastAccess <= idleTtlNanos) {
+                    break;
+                }
+                it.remove();
+                totalBytes -= entry.getValue().bytes;
+                expired.put(entry.getKey(), entry.getValue());
+            }
+        }
+        expired.forEach((sessionId, session) -> notifyEvicted(sessionId, session.turns, EvictionCause.EXPIRED));
+        if (!expired.isEmpty()) {
+            log.info("清除空闲聊天会话{}个", expired.size());
+        }
+    }
+
+    private void removeLocked(String sessionId) {
+        Session session = sessions.remove(sessionId);
+        if (session != null) {
+            totalBytes -= session.bytes;
+        }
+    }
+
+    private void notifyEvicted(String sessionId, List<ChatDialog> turns, EvictionCause cause) {
+        evictionCounters.get(cause).increment();
+        log.debug("淘汰聊天会话. [sessionId={}, turns={}, cause={}]", sessionId, turns.size(), cause);
+        for (EvictionListener listener : listeners) {
+            try {
+                listener.onEvicted(sessionId, turns, cause);
+            } catch (Exception e) {
+                log.warn("聊天会话淘汰通知失败. [sessionId={}]", sessionId, e);
+            }
+        }
+    }
+
+    private static long estimate(ChatDialog turn) {
+        long chars = (turn.getQuestion() == null ? 0 : turn.getQuestion().length())
+                + (turn.getAnswer() == null ? 0 : turn.getAnswer().length());
+        return TURN_OVERHEAD_BYTES + 2 * chars;
+    }
+}
@@ -0,0 +1,103 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.ChatSessionConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.redis.connection.StringRedisConnection;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.falldetection.backend.utils.RedisConstants.CHAT_SESSION_KEY;
+
+/**
+ * 聊天会话的问答记录保存在Redis中（chat.session.store=redis），任一实例都可以继续同一个会话，重启不丢失
+ * 每个会话一个List，每轮问答一个元素，内容为 ["问题","回答"]；
+ * 每次往返只追加一个元素，RPUSH、LTRIM和EXPIRE在一次pipeline中发送，读写都会刷新空闲超时
+ */
+@Service
+@ConditionalOnProperty(prefix = "chat.session", name = "store", havingValue = "redis")
+@Slf4j
+public class RedisChatSessionRepository implements ChatSessionRepository {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final ChatSessionConfig config;
+
+    public RedisChatSessionRepository(StringRedisTemplate stringRedisTemplate, ObjectMapper objectMapper,
+                                      ChatSessionConfig config) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.config = config;
+    }
+
+    @Override
+    public List<ChatDialog> getTurns(String sessionId) {
+        String key = CHAT_SESSION_KEY + sessionId;
+        List<ChatDialog> turns = new ArrayList<>();
+        try {
+            List<Object> results = stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                redis.lRange(key, 0, -1);
+                redis.expire(key, config.getIdleTtlSeconds());
+                return null;
+            });
+            List<?> encoded = (List<?>) results.get(0);
+            if (encoded == null) {
+                return turns;
+            }
+            for (Object value : encoded) {
+                ChatDialog turn = decode(value.toString());
+                if (turn != null) {
+                    turns.add(turn);
+                }
+            }
+        } catch (Exception e) {
+            // Redis不可用时本轮不带历史继续对话
+            log.warn("读取聊天会话失败. [sessionId={}]", sessionId, e);
+        }
+        return turns;
+    }
+
+    @Override
+    public void appendTurn(String sessionId, ChatDialog turn) {
+        String key = CHAT_SESSION_KEY + sessionId;
+        try {
+            String encoded = objectMapper.writeValueAsString(new String[]{turn.getQuestion(), turn.getAnswer()});
+            stringRedisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                StringRedisConnection redis = (StringRedisConnection) connection;
+                redis.rPush(key, encoded);
+                redis.lTrim(key, -config.getMaxTurns(), -1);
+                redis.expire(key, config.getIdleTtlSeconds());
+                return null;
+            });
+        } catch (Exception e) {
+            log.error("保存聊天会话失败. [sessionId={}]", sessionId, e);
+        }
+    }
+
+    @Override
+    public void remove(String sessionId) {
+        try {
+            stringRedisTemplate.delete(CHAT_SESSION_KEY + sessionId);
+        } catch (Exception e) {
+            // 未删除的会话随空闲超时过期
+            log.error("删除聊天会话失败. [sessionId={}]", sessionId, e);
+        }
+    }
+
+    private ChatDialog decode(String value) {
+        try {
+            String[] pair = objectMapper.readValue(value, String[].class);
+            return pair.length == 2 ? new ChatDialog(pair[0], pair[1]) : null;
+        } catch (Exception e) {
+            log.warn("聊天会话记录格式错误，已跳过. [value={}]", value);
+            return null;
+        }
+    }
+}
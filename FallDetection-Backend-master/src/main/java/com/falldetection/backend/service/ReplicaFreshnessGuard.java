@@ -0,0 +1,69 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.DataSourceRoutingConfig;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 记录最近写入过的用户，pinSeconds内这些用户的只读查询仍走主库
+ * 只在本实例内生效，多实例部署时依赖副本延迟小于pinSeconds
+ */
+@Service
+public class ReplicaFreshnessGuard {
+    /** 超过这个数量时顺带清理过期的记录 */
+    private static final int PRUNE_THRESHOLD = 10000;
+
+    private final DataSourceRoutingConfig config;
+
+    /** userId -> 截止时间（System.nanoTime） */
+    private final Map<Long, Long> pinnedUntil = new ConcurrentHashMap<>();
+
+    public ReplicaFreshnessGuard(DataSourceRoutingConfig config) {
+        this.config = config;
+    }
+
+    public void markWrite(Long userId) {
+        markWrite(List.of(userId));
+    }
+
+    /**
+     * 标记用户刚写入过数据，在事务中调用时从提交时刻开始计时
+     */
+    public void markWrite(Collection<Long> userIds) {
+        if (!config.isEnabled() || userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = List.copyOf(userIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    pin(ids);
+                }
+            });
+        } else {
+            pin(ids);
+        }
+    }
+
+    public boolean isPinned(Long userId) {
+        Long until = pinnedUntil.get(userId);
+        return until != null && until - System.nanoTime() > 0;
+    }
+
+    private void pin(List<Long> userIds) {
+        long now = System.nanoTime();
+        long until = now + TimeUnit.SECONDS.toNanos(config.getPinSeconds());
+        userIds.forEach(userId -> pinnedUntil.put(userId, until));
+        if (pinnedUntil.size() > PRUNE_THRESHOLD) {
+            pinnedUntil.values().removeIf(deadline -> deadline - now <= 0);
+        }
+    }
+}
@@ -2,58 +2,71 @@ package com.falldetection.backend.service.impl;
 
 import com.falldetection.backend.dto.ChatDialog;
 import com.falldetection.backend.model.QwenStreamingChatModel;
+import com.falldetection.backend.service.ChatContextManager;
+import com.falldetection.backend.service.ChatResponseCache;
+import com.falldetection.backend.service.ChatSessionRepository;
 import com.falldetection.backend.service.IChatService;
-import dev.langchain4j.data.message.AiMessage;
+import com.falldetection.backend.service.MemoryChatSessionRepository;
 import dev.langchain4j.data.message.ChatMessage;
-import dev.langchain4j.data.message.UserMessage;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Flux;
 
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 
 @Service
 @Slf4j
 public class ChatServiceImpl implements IChatService {
     private final QwenStreamingChatModel qwenStreamingChatModel;
-    private final Map<String, List<ChatMessage>> sessionHistory = new ConcurrentHashMap<>();
-    private final Map<String, List<ChatDialog>> sessionDialogs = new ConcurrentHashMap<>();
+    // 每个会话只保存问答记录，发送给模型的历史消息由问答记录生成；存储实现由chat.session.store选择
+    private final ChatSessionRepository chatSessionRepository;
+    // 按token预算截取最近的问答，更早的问答合并为摘要
+    private final ChatContextManager chatContextManager;
+    // 首轮和短上下文提问的回答缓存
+    private final ChatResponseCache chatResponseCache;
 
-    public ChatServiceImpl(QwenStreamingChatModel qwenStreamingChatModel) {
+    public ChatServiceImpl(QwenStreamingChatModel qwenStreamingChatModel, ChatSessionRepository chatSessionRepository,
+                           ChatContextManager chatContextManager, ChatResponseCache chatResponseCache) {
         this.qwenStreamingChatModel = qwenStreamingChatModel;
+        this.chatSessionRepository = chatSessionRepository;
+        this.chatContextManager = chatContextManager;
+        this.chatResponseCache = chatResponseCache;
+        // 会话被淘汰时一并丢弃其摘要；Redis存储由key过期淘汰，没有通知，摘要缓存自身按会话数上限淘汰
+        if (chatSessionRepository instanceof MemoryChatSessionRepository memoryRepository) {
+            memoryRepository.addEvictionListener((sessionId, turns, cause) -> chatContextManager.evict(sessionId));
+        }
     }
 
     @Override
     public Flux<String> streamChat(String sessionId, String message) {
-        List<ChatMessage> history = sessionHistory.computeIfAbsent(sessionId, k -> new ArrayList<>());
-        List<ChatDialog> dialogs = sessionDialogs.computeIfAbsent(sessionId, k -> new ArrayList<>());
-        history.add(UserMessage.from(message));
-        StringBuilder assistantReply = new StringBuilder();
-        return qwenStreamingChatModel.streamChatWithHistory(history)
-                .doOnNext(token -> {
-                    assistantReply.append(token);
-                    log.debug("Received token: {}", token);
-                })
-                .doOnComplete(() -> {
-                    history.add(AiMessage.from(assistantReply.toString()));
-                    dialogs.add(new ChatDialog(message, assistantReply.toString()));
-                    log.info("Chat completed for session: {}", sessionId);
-                })
-                .doOnError(error -> {
-                    log.error("Error in chat stream for session: {}", sessionId, error);
-                });
+        return Flux.defer(() -> {
+            List<ChatDialog> dialogs = chatSessionRepository.getTurns(sessionId);
+            List<ChatMessage> history = chatContextManager.buildMessages(sessionId, dialogs, message);
+            StringBuilder assistantReply = new StringBuilder();
+            return chatResponseCache.getOrGenerate(dialogs, message,
+                            () -> qwenStreamingChatModel.streamChatWithHistory(history))
+                    .doOnNext(token -> {
+                        assistantReply.append(token);
+                        log.debug("Received token: {}", token);
+                    })
+                    .doOnComplete(() -> {
+                        chatSessionRepository.appendTurn(sessionId, new ChatDialog(message, assistantReply.toString()));
+                        log.info("Chat completed for session: {}", sessionId);
+                    })
+                    .doOnError(error -> {
+                        log.error("Error in chat stream for session: {}", sessionId, error);
+                    });
+        });
     }
 
     @Override
     public void clearHistory(String sessionId) {
-        sessionHistory.remove(sessionId);
+        chatSessionRepository.remove(sessionId);
+        chatContextManager.evict(sessionId);
     }
 
     @Override
     public List<ChatDialog> getDialogs(String sessionId) {
-        return sessionDialogs.getOrDefault(sessionId, new ArrayList<>());
+        return chatSessionRepository.getTurns(sessionId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,135 @@
+package com.falldetection.backend.service.impl;
+
+import com.falldetection.backend.config.DashboardConfig;
+import com.falldetection.backend.dto.DashboardDTO;
+import com.falldetection.backend.dto.Result;
+import com.falldetection.backend.dto.UserDTO;
+import com.falldetection.backend.service.DashboardCache;
+import com.falldetection.backend.service.IDashboardService;
+import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.service.IUserService;
+import com.falldetection.backend.utils.UserHolder;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * 仪表盘聚合：用户信息、事件计数和最近事件在专用线程池上并行加载，一次请求返回
+ * 整体受时间预算约束，超时的部分不等待，按缺失返回且不缓存
+ */
+@Service
+@Slf4j
+public class DashboardServiceImpl implements IDashboardService {
+
+    @Autowired
+    private IUserService userService;
+
+    @Autowired
+    private IEventService eventService;
+
+    @Autowired
+    private DashboardCache dashboardCache;
+
+    @Autowired
+    private DashboardConfig config;
+
+    @Autowired
+    @Qualifier("dashboardExecutor")
+    private ThreadPoolTaskExecutor dashboardExecutor;
+
+    private final Timer loadTimer;
+    private final Counter partialCounter;
+
+    public DashboardServiceImpl(MeterRegistry meterRegistry) {
+        this.loadTimer = Timer.builder("dashboard.load.latency")
+                .description("仪表盘未命中缓存时的加载耗时")
+                .register(meterRegistry);
+        this.partialCounter = meterRegistry.counter("dashboard.partial");
+    }
+
+    @Override
+    public Result getDashboard() {
+        UserDTO user = UserHolder.getUser();
+        if (user == null) {
+            return Result.fail("用户未登录");
+        }
+        DashboardDTO cached = dashboardCache.get(user.getId());
+        if (cached != null) {
+            return Result.ok(cached);
+        }
+
+        long version = dashboardCache.version(user.getId());
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.MILLISECONDS.toNanos(config.getBudgetMs());
+        Future<Object> profile = submit(userService::me);
+        Future<Object> stats = submit(eventService::getEventStats);
+        Future<Object> recent = submit(() -> eventService.getEventList(1, config.getRecentSize()));
+
+        List<String> missing = new ArrayList<>();
+        DashboardDTO dashboard = new DashboardDTO();
+        dashboard.setUser(await(profile, deadline, "user", missing));
+        dashboard.setStats(await(stats, deadline, "stats", missing));
+        dashboard.setRecent(await(recent, deadline, "recent", missing));
+        dashboard.setMissing(missing);
+        loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (missing.isEmpty()) {
+            dashboardCache.put(user.getId(), version, dashboard);
+        } else {
+            partialCounter.increment();
+        }
+        return Result.ok(dashboard);
+    }
+
+    /**
+     * 提交到仪表盘线程池，返回Result中的data；Result失败或线程池已满时future以异常结束
+     * 用线程池的FutureTask而不是CompletableFuture，cancel(true)才会中断正在执行的线程
+     */
+    private Future<Object> submit(Supplier<Result> loader) {
+        try {
+            return dashboardExecutor.submit(() -> {
+                Result result = loader.get();
+                if (!Boolean.TRUE.equals(result.getSuccess())) {
+                    throw new IllegalStateException(result.getErrorMsg());
+                }
+                return result.getData();
+            });
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * 等到deadline为止；超时的部分取消掉，排队中的不再执行，执行中的被中断，慢查询不会占满线程池
+     */
+    private Object await(Future<Object> future, long deadline, String part, List<String> missing) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("仪表盘{}加载超出时间预算. [budgetMs={}]", part, config.getBudgetMs());
+        } catch (ExecutionException e) {
+            log.warn("仪表盘{}加载失败", part, e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        missing.add(part);
+        return null;
+    }
+}
@@ -1,39 +1,133 @@
 package com.falldetection.backend.service.impl;
 
 import cn.hutool.core.bean.BeanUtil;
-import cn.hutool.json.JSONUtil;
+import cn.hutool.core.util.StrUtil;
 import com.falldetection.backend.service.IChatService;
 import lombok.extern.slf4j.Slf4j;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.core.conditions.update.UpdateWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.falldetection.backend.config.EventIngestConfig;
 import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.dto.EventBatchRequest;
 import com.falldetection.backend.dto.EventDTO;
+import com.falldetection.backend.dto.EventSearchDTO;
+import com.falldetection.backend.dto.EventTimelineDTO;
+import com.falldetection.backend.dto.RawJson;
 import com.falldetection.backend.dto.Result;
 import com.falldetection.backend.dto.UserDTO;
 import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.entity.EventRollup;
+import com.falldetection.backend.entity.EventStats;
+import com.falldetection.backend.handler.CompressedChatDialogListTypeHandler;
 import com.falldetection.backend.mapper.EventMapper;
+import com.falldetection.backend.service.DashboardCache;
+import com.falldetection.backend.service.EventArchiveStore;
+import com.falldetection.backend.service.EventCoalescer;
+import com.falldetection.backend.service.EventFeedHub;
+import com.falldetection.backend.service.EventIngestPipeline;
+import com.falldetection.backend.service.EventListCache;
+import com.falldetection.backend.service.EventSearchIndex;
 import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.service.IEventStatsService;
+import com.falldetection.backend.service.ReplicaFreshnessGuard;
+import com.falldetection.backend.utils.EventCursor;
 import com.falldetection.backend.utils.SystemConstant;
 import com.falldetection.backend.utils.UserHolder;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import org.apache.ibatis.cursor.Cursor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 import java.util.HashMap;
 
 @Service
 @Slf4j
 public class EventServiceImpl extends ServiceImpl<EventMapper, Event> implements IEventService {
 
+    /** 导出时每写多少行刷新一次输出流 */
+    private static final int EXPORT_FLUSH_ROWS = 100;
+
+    /** 导出时每次从归档读取的事件数 */
+    private static final int EXPORT_ARCHIVE_PAGE = 256;
+
+    /** 事件没有问答记录时返回的dialog */
+    private static final RawJson EMPTY_DIALOG_JSON = new RawJson("[]".getBytes(StandardCharsets.UTF_8));
+
+    /** 列表只查询摘要列，dialog通过getEventDialog按需加载 */
+    private static final String[] SUMMARY_COLUMNS = {"id", "user_id", "timestamp", "event_type", "image_url",
+            "repeat_count"};
+
+    /** 修改已归档（或正在归档）的事件时返回的错误 */
+    private static final String ARCHIVED_READ_ONLY = "事件已归档，只能查看，不能修改或删除";
+
     @Autowired
     private IChatService chatService;
 
+    @Autowired
+    private IEventStatsService eventStatsService;
+
+    @Autowired
+    private EventIngestConfig eventIngestConfig;
+
+    @Autowired
+    private EventIngestPipeline eventIngestPipeline;
+
+    @Autowired
+    private EventListCache eventListCache;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EventArchiveStore eventArchiveStore;
+
+    @Autowired
+    private EventSearchIndex eventSearchIndex;
+
+    @Autowired
+    private EventCoalescer eventCoalescer;
+
+    @Autowired
+    private EventFeedHub eventFeedHub;
+
+    @Autowired
+    private ReplicaFreshnessGuard replicaFreshnessGuard;
+
+    @Autowired
+    private DashboardCache dashboardCache;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
     @Override
+    @Transactional(readOnly = true)
     public Result getEventList(Integer page, Integer size) {
         UserDTO user = UserHolder.getUser();
         if (user == null) {
@@ -48,51 +142,187 @@ public class EventServiceImpl extends ServiceImpl<EventMapper, Event> implements
             size = SystemConstant.DEFAULT_PAGE_SIZE;
         }
 
+        // 前几页先读缓存
+        EventListCache.Lookup cached = eventListCache.isCacheable(page)
+                ? eventListCache.get(user.getId(), page, size)
+                : null;
+        if (cached != null && cached.getValue() != null) {
+            return Result.ok(cached.getValue());
+        }
+
         // 分页查询
+        LocalDateTime watermark = eventArchiveStore.getWatermark();
         Page<Event> pageInfo = new Page<>(page, size);
+        // 总数取增量维护的计数（已包含归档事件），不对fall_events做扫描所有分区的COUNT
+        pageInfo.setSearchCount(false);
         QueryWrapper<Event> wrapper = new QueryWrapper<>();
 
-        wrapper.eq("user_id", user.getId())
-                .orderByDesc("timestamp");
+        wrapper.select(SUMMARY_COLUMNS)
+                .eq("user_id", user.getId())
+                .ge(watermark != null, "timestamp", watermark)
+                .orderByDesc("timestamp", "id");
 
         Page<Event> eventPage = page(pageInfo, wrapper);
+        List<Event> events = new ArrayList<>(eventPage.getRecords());
+        long total = eventStatsService.getStats(user.getId()).getTotal();
+
+        // 热数据不够一页时，从归档中接着读取
+        if (watermark != null) {
+            long archivedTotal = eventArchiveStore.count(user.getId());
+            if (archivedTotal > 0 && events.size() < size) {
+                long skip = Math.max(0, (long) (page - 1) * size - (total - archivedTotal));
+                events.addAll(eventArchiveStore.readPage(user.getId(), skip, size - events.size()));
+            }
+        }
 
         // 转换为DTO
-        List<EventDTO> eventDTOs = eventPage.getRecords().stream()
-                .map(event -> {
-                    EventDTO dto = new EventDTO();
-                    dto.setId(event.getId());
-                    dto.setUserId(event.getUserId());
-                    dto.setTimestamp(event.getTimestamp());
-                    dto.setEventType(event.getEventType());
-                    // 新增：设置imageUrl
-                    dto.setImageUrl(event.getImageUrl());
-
-                    // 手动转换dialog字段：从JSON字符串转换为List<ChatDialog>
-                    if (event.getDialog() != null && !event.getDialog().isEmpty()) {
-                        try {
-                            List<ChatDialog> dialogs = JSONUtil.toList(event.getDialog(), ChatDialog.class);
-                            dto.setDialog(dialogs);
-                        } catch (Exception e) {
-                            log.warn("解析dialog JSON失败: {}", event.getDialog(), e);
-                            dto.setDialog(null);
-                        }
-                    } else {
-                        dto.setDialog(null);
-                    }
-
-                    return dto;
-                })
+        List<EventDTO> eventDTOs = events.stream()
+                .map(this::toSummaryDTO)
                 .collect(Collectors.toList());
 
         // 返回Map，包含records和total
         HashMap<String, Object> resultMap = new HashMap<>();
         resultMap.put("records", eventDTOs);
-        resultMap.put("total", eventPage.getTotal());
+        resultMap.put("total", total);
+        if (cached != null) {
+            eventListCache.put(user.getId(), cached.getVersion(), page, size, resultMap);
+        }
+        return Result.ok(resultMap);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Result getEventListByCursor(String cursor, Integer size) {
+        UserDTO user = UserHolder.getUser();
+        if (user == null) {
+            return Result.fail("用户未登录");
+        }
+
+        if (size == null || size < 1 || size > SystemConstant.MAX_PAGE_SIZE) {
+            size = SystemConstant.DEFAULT_PAGE_SIZE;
+        }
+
+        // 按 (user_id, timestamp DESC, id DESC) 定位，走 idx_user_timestamp_id，不做OFFSET扫描和COUNT
+        LocalDateTime watermark = eventArchiveStore.getWatermark();
+        QueryWrapper<Event> wrapper = new QueryWrapper<>();
+        wrapper.select(SUMMARY_COLUMNS)
+                .eq("user_id", user.getId())
+                .ge(watermark != null, "timestamp", watermark);
+        EventCursor position = null;
+        if (StrUtil.isNotBlank(cursor)) {
+            position = EventCursor.decode(cursor);
+            if (position == null) {
+                return Result.fail("无效的分页游标");
+            }
+            EventCursor after = position;
+            wrapper.le("timestamp", position.getTimestamp())
+                    .and(w -> w.lt("timestamp", after.getTimestamp())
+                            .or()
+                            .lt("id", after.getId()));
+        }
+        // 多取一条用于判断是否还有下一页
+        wrapper.orderByDesc("timestamp", "id")
+                .last("LIMIT " + (size + 1));
+
+        List<Event> events = new ArrayList<>(list(wrapper));
+        // 热数据读完后从游标位置（或最后一条热数据之后）继续读取归档
+        if (watermark != null && events.size() <= size) {
+            if (!events.isEmpty()) {
+                Event last = events.get(events.size() - 1);
+                position = new EventCursor(last.getTimestamp(), last.getId());
+            }
+            events.addAll(eventArchiveStore.readAfter(user.getId(),
+                    position == null ? null : position.getTimestamp(),
+                    position == null ? null : position.getId(),
+                    size + 1 - events.size()));
+        }
+        boolean hasMore = events.size() > size;
+        if (hasMore) {
+            events = events.subList(0, size);
+        }
+
+        List<EventDTO> eventDTOs = events.stream()
+                .map(this::toSummaryDTO)
+                .collect(Collectors.toList());
+
+        String nextCursor = null;
+        if (hasMore) {
+            Event last = events.get(events.size() - 1);
+            nextCursor = new EventCursor(last.getTimestamp(), last.getId()).encode();
+        }
+
+        HashMap<String, Object> resultMap = new HashMap<>();
+        resultMap.put("records", eventDTOs);
+        resultMap.put("nextCursor", nextCursor);
+        resultMap.put("hasMore", hasMore);
         return Result.ok(resultMap);
     }
 
     @Override
+    public Result getEventDialog(Long id, LocalDateTime timestamp) {
+        UserDTO user = UserHolder.getUser();
+        if (user == null) {
+            return Result.fail("用户未登录");
+        }
+        // 按id和user_id一起查询，不属于当前用户的事件视为不存在
+        // dialog直接读成JSON，原样写入响应
+        EventDTO event = baseMapper.selectDialogJson(id, user.getId(), timestamp);
+        if (event == null && eventArchiveStore.getWatermark() != null) {
+            Event archived = eventArchiveStore.findById(user.getId(), id);
+            event = archived == null ? null : toEventDTO(archived);
+        }
+        if (event == null) {
+            return Result.fail("事件不存在");
+        }
+        return Result.ok(event.getDialog() == null ? EMPTY_DIALOG_JSON : event.getDialog());
+    }
+
+    /**
+     * @return 事件的截图URL，事件不存在、不属于该用户或没有截图时返回null
+     */
+    @Override
+    public String getEventImageUrl(Long userId, Long id) {
+        Event event = query().select("id", "image_url")
+                .eq("id", id)
+                .eq("user_id", userId)
+                .one();
+        if (event == null && eventArchiveStore.getWatermark() != null) {
+            event = eventArchiveStore.findById(userId, id);
+        }
+        return event == null ? null : event.getImageUrl();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Result attachEventImage(Long id, String imageUrl) {
+        UserDTO user = UserHolder.getUser();
+        if (user == null) {
+            return Result.fail("用户未登录");
+        }
+        // 已归档的事件不能再修改
+        LocalDateTime writableFrom = beginMutation();
+        Event event = query().select(SUMMARY_COLUMNS)
+                .eq("id", id)
+                .eq("user_id", user.getId())
+                .one();
+        if (event == null) {
+            return Result.fail(eventArchiveStore.isArchived(user.getId(), id) ? ARCHIVED_READ_ONLY : "事件不存在");
+        }
+        if (writableFrom != null && event.getTimestamp().isBefore(writableFrom)) {
+            return Result.fail(ARCHIVED_READ_ONLY);
+        }
+        update(new UpdateWrapper<Event>()
+                .set("image_url", imageUrl)
+                .eq("id", id)
+                .eq("user_id", user.getId())
+                .eq("timestamp", event.getTimestamp()));
+        event.setImageUrl(imageUrl);
+        afterEventsChanged(List.of(event), List.of());
+        return Result.ok();
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
     public Result saveEvent(String sessionId, Integer eventType, String imageUrl) {
         UserDTO user = UserHolder.getUser();
         if (user == null) {
@@ -101,23 +331,48 @@ public class EventServiceImpl extends ServiceImpl<EventMapper, Event> implements
 
         Event event = new Event();
         event.setUserId(user.getId());
-        event.setTimestamp(LocalDateTime.now());
+        // 截到秒：fall_events.timestamp是DATETIME，带纳秒的值按主键匹配不到已写入的行，合并时更新0行
+        event.setTimestamp(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS));
         event.setEventType(eventType);
         event.setImageUrl(imageUrl); // 新增
+        event.setRepeatCount(1);
         if (sessionId == null) {
             log.warn("sessionId 为空. [event:{}]", event);
             event.setDialog(null);
         } else {
             List<ChatDialog> dialogs = chatService.getDialogs(sessionId);
             if (dialogs != null && !dialogs.isEmpty()) {
-                event.setDialog(JSONUtil.toJsonStr(dialogs));
+                event.setDialog(new ArrayList<>(dialogs));
             } else {
                 event.setDialog(null);
             }
         }
 
+        if (eventIngestConfig.isAsync()) {
+            // 写入事件日志并入队后返回，由EventIngestPipeline批量写库
+            if (!eventIngestPipeline.offer(event)) {
+                log.warn("事件写入队列已满. [event:{}]", event);
+                return Result.fail("系统繁忙，请稍后重试");
+            }
+            if (sessionId != null) {
+                chatService.clearHistory(sessionId);
+            }
+            return Result.ok();
+        }
+
+        // 同一次跌倒的重复上报合并到已有记录
+        if (eventCoalescer.isEnabled() && mergeIntoRecent(event)) {
+            if (sessionId != null) {
+                chatService.clearHistory(sessionId);
+            }
+            return Result.ok();
+        }
+
         boolean success = save(event);
         if (success) {
+            eventStatsService.onEventsSaved(List.of(event));
+            eventCoalescer.onEventsSaved(List.of(event));
+            afterEventsChanged(List.of(event), List.of());
             if (sessionId != null) {
                 chatService.clearHistory(sessionId);
             }
@@ -129,7 +384,82 @@ public class EventServiceImpl extends ServiceImpl<EventMapper, Event> implements
     }
 
     @Override
-    public Result deleteEvent(Long id) {
+    @Transactional(rollbackFor = Exception.class)
+    public void saveEventBatch(List<Event> events) {
+        List<Event> inserts = events;
+        if (eventCoalescer.isEnabled()) {
+            // 先合并批次内的重复事件，再尝试合并到已写入的记录
+            inserts = new ArrayList<>();
+            for (Event event : eventCoalescer.fold(events)) {
+                if (!mergeIntoRecent(event)) {
+                    inserts.add(event);
+                }
+            }
+            if (inserts.isEmpty()) {
+                return;
+            }
+        }
+        if (eventIngestConfig.getJdbcBatch()) {
+            saveBatch(inserts, inserts.size());
+        } else {
+            inserts.forEach(this::save);
+        }
+        eventStatsService.onEventsSaved(inserts);
+        eventCoalescer.onEventsSaved(inserts);
+        afterEventsChanged(inserts, List.of());
+    }
+
+    /**
+     * 把arrival合并到窗口内最近一条同类记录，需在事务中调用
+     * @return 是否已合并；没有可合并的记录或记录已被删除/修改类型时返回false，由调用方正常写入
+     */
+    private boolean mergeIntoRecent(Event arrival) {
+        EventCoalescer.Recent target = eventCoalescer.find(arrival);
+        if (target == null) {
+            return false;
+        }
+        // 值为null的字段不会被更新
+        Event changes = new Event().setImageUrl(arrival.getImageUrl());
+        if (arrival.getDialog() != null && !arrival.getDialog().isEmpty()) {
+            // 追加问答是读-改-写，先锁住目标行，并发的合并依次追加，不会互相覆盖；只累加计数时无需加锁
+            Event existing = baseMapper.selectDialogForUpdate(target.getEventId(), arrival.getUserId(),
+                    target.getTimestamp());
+            if (existing == null) {
+                eventCoalescer.forget(arrival.getUserId(), target);
+                return false;
+            }
+            List<ChatDialog> dialogs = existing.getDialog() == null
+                    ? new ArrayList<>()
+                    : new ArrayList<>(existing.getDialog());
+            dialogs.addAll(arrival.getDialog());
+            changes.setDialog(dialogs);
+        }
+        boolean updated = update(changes, new UpdateWrapper<Event>()
+                .setSql("repeat_count = repeat_count + " + EventCoalescer.repeatCount(arrival))
+                .eq("id", target.getEventId())
+                .eq("user_id", arrival.getUserId())
+                .eq("timestamp", target.getTimestamp())
+                .eq(target.getEventType() != null, "event_type", target.getEventType()));
+        if (!updated) {
+            eventCoalescer.forget(arrival.getUserId(), target);
+            return false;
+        }
+        log.info("合并重复上报的事件. [eventId={}, userId={}, repeat={}]",
+                target.getEventId(), arrival.getUserId(), EventCoalescer.repeatCount(arrival));
+        eventCoalescer.onMerged(arrival.getUserId(), target, arrival.getTimestamp());
+        Event merged = new Event().setId(target.getEventId())
+                .setUserId(arrival.getUserId())
+                .setTimestamp(target.getTimestamp())
+                .setEventType(target.getEventType())
+                .setImageUrl(changes.getImageUrl())
+                .setDialog(changes.getDialog());
+        afterEventsChanged(List.of(merged), List.of());
+        return true;
+    }
+
+    @Override
+    @Transactional(rollbackFor = Exception.class)
+    public Result deleteEvent(Long id, LocalDateTime timestamp) {
         log.info("[deleteEvent] 请求删除事件id={}", id);
         UserDTO user = UserHolder.getUser();
         if (user == null) {
@@ -137,8 +467,14 @@ public class EventServiceImpl extends ServiceImpl<EventMapper, Event> implements
             return Result.fail("用户未登录");
         }
         log.info("[deleteEvent] 当前用户id={}", user.getId());
-        Event event = getById(id);
+        LocalDateTime writableFrom = beginMutation();
+        // 只查询计数需要的列，不读取dialog；带上timestamp时只查询对应的分区
+        Event event = query().select(SUMMARY_COLUMNS).eq("id", id).eq(timestamp != null, "timestamp", timestamp).one();
         if (event == null) {
+            if (eventArchiveStore.isArchived(user.getId(), id)) {
+                log.warn("[deleteEvent] 事件id={} 已归档", id);
+                return Result.fail(ARCHIVED_READ_ONLY);
+            }
             log.warn("[deleteEvent] 事件id={} 不存在", id);
             return Result.fail("事件不存在");
         }
@@ -147,9 +483,16 @@ public class EventServiceImpl extends ServiceImpl<EventMapper, Event> implements
             log.warn("[deleteEvent] 用户无权删除该事件: 事件userId={}, 当前用户id={}", event.getUserId(), user.getId());
             return Result.fail("无权删除该事件");
         }
-        boolean success = removeById(id);
+        if (writableFrom != null && event.getTimestamp().isBefore(writableFrom)) {
+            log.warn("[deleteEvent] 事件id={} 已归档或正在归档", id);
+            return Result.fail(ARCHIVED_READ_ONLY);
+        }
+        // 按主键(id, timestamp)删除，只涉及事件所在的分区
+        boolean success = remove(new QueryWrapper<Event>().eq("id", id).eq("timestamp", event.getTimestamp()));
         log.info("[deleteEvent] 删除结果: {}", success);
         if (success) {
+            eventStatsService.onEventsRemoved(List.of(event));
+            afterEventsChanged(List.of(), List.of(event));
             return Result.ok();
         } else {
             return Result.fail("删除失败");
@@ -157,26 +500,341 @@ public class EventServiceImpl extends ServiceImpl<EventMapper, Event> implements
     }
 
     @Override
-    public Result getEventStats() {
+    public Result deleteEvents(EventBatchRequest request) {
+        return mutateEvents(request, null);
+    }
+
+    @Override
+    public Result relabelEvents(EventBatchRequest request) {
+        Integer eventType = request.getEventType();
+        if (eventType == null || eventType < 0 || eventType > 2) {
+            return Result.fail("eventType只能为0、1或2");
+        }
+        return mutateEvents(request, eventType);
+    }
+
+    /**
+     * 批量删除（eventType为null）或修改类型，每块在独立的事务中执行，避免长时间持有行锁
+     */
+    private Result mutateEvents(EventBatchRequest request, Integer eventType) {
         UserDTO user = UserHolder.getUser();
         if (user == null) {
             return Result.fail("用户未登录");
         }
-        QueryWrapper<Event> wrapper = new QueryWrapper<>();
-        wrapper.eq("user_id", user.getId());
-        List<Event> events = list(wrapper);
+        Long userId = user.getId();
+        List<Long> ids = request.getIds();
+        long affected = 0;
+        if (ids != null && !ids.isEmpty()) {
+            if (request.getFrom() != null || request.getTo() != null) {
+                return Result.fail("ids与时间范围不能同时指定");
+            }
+            if (ids.size() > SystemConstant.MAX_BATCH_IDS) {
+                return Result.fail("单次最多操作" + SystemConstant.MAX_BATCH_IDS + "个事件");
+            }
+            List<Long> distinct = ids.stream().filter(Objects::nonNull).distinct().collect(Collectors.toList());
+            List<Long> archived = archivedIds(userId, distinct);
+            if (!archived.isEmpty()) {
+                return Result.fail(ARCHIVED_READ_ONLY + ": " + archived);
+            }
+            for (int i = 0; i < distinct.size(); i += SystemConstant.BATCH_MUTATION_CHUNK) {
+                List<Long> chunk = distinct.subList(i, Math.min(i + SystemConstant.BATCH_MUTATION_CHUNK, distinct.size()));
+                affected += mutateChunk(userId, w -> w.in("id", chunk), eventType);
+            }
+        } else {
+            LocalDateTime from = request.getFrom();
+            LocalDateTime to = request.getTo();
+            if (from == null || to == null) {
+                return Result.fail("请指定ids或完整的时间范围");
+            }
+            if (!from.isBefore(to)) {
+                return Result.fail("from必须早于to");
+            }
+            LocalDateTime writableFrom = eventArchiveStore.getWritableFrom();
+            if (writableFrom != null && from.isBefore(writableFrom)) {
+                return Result.fail(ARCHIVED_READ_ONLY + "，from不能早于" + writableFrom);
+            }
+            // 删除的行和已改好类型的行不会再被选中，逐块处理直到不满一块
+            int n;
+            do {
+                n = mutateChunk(userId, w -> w.ge("timestamp", from).lt("timestamp", to), eventType);
+                affected += n;
+            } while (n == SystemConstant.BATCH_MUTATION_CHUNK);
+        }
+        log.info("批量{}事件: userId={}, affected={}", eventType == null ? "删除" : "修改类型", userId, affected);
+        return Result.ok(affected);
+    }
+
+    private int mutateChunk(Long userId, Consumer<QueryWrapper<Event>> filter, Integer eventType) {
+        Integer affected = transactionTemplate.execute(status -> {
+            // 先锁定并读出本块的行，用于维护计数和时间桶；检查之后才开始归档的行同样不修改
+            LocalDateTime writableFrom = beginMutation();
+            QueryWrapper<Event> wrapper = new QueryWrapper<>();
+            wrapper.eq("user_id", userId);
+            filter.accept(wrapper);
+            wrapper.ge(writableFrom != null, "timestamp", writableFrom);
+            if (eventType != null) {
+                wrapper.and(w -> w.ne("event_type", eventType).or().isNull("event_type"));
+            }
+            wrapper.orderByAsc("timestamp", "id");
+            List<Event> rows = getBaseMapper().selectChunkForUpdate(wrapper, SystemConstant.BATCH_MUTATION_CHUNK);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+            List<Long> ids = rows.stream().map(Event::getId).collect(Collectors.toList());
+            // 行已按时间排序，用首尾时间限定范围，只涉及这些行所在的分区
+            LocalDateTime first = rows.get(0).getTimestamp();
+            LocalDateTime last = rows.get(rows.size() - 1).getTimestamp();
+            if (eventType == null) {
+                remove(new QueryWrapper<Event>().eq("user_id", userId).between("timestamp", first, last).in("id", ids));
+                eventStatsService.onEventsRemoved(rows);
+                afterEventsChanged(List.of(), rows);
+            } else {
+                update(new UpdateWrapper<Event>().set("event_type", eventType)
+                        .eq("user_id", userId).between("timestamp", first, last).in("id", ids));
+                List<Event> relabeled = rows.stream()
+                        .map(row -> new Event().setId(row.getId()).setUserId(row.getUserId())
+                                .setTimestamp(row.getTimestamp()).setEventType(eventType))
+                        .collect(Collectors.toList());
+                eventStatsService.onEventsRemoved(rows);
+                eventStatsService.onEventsSaved(relabeled);
+                afterEventsChanged(relabeled, List.of());
+            }
+            return rows.size();
+        });
+        return affected == null ? 0 : affected;
+    }
+
+    /**
+     * @return ids中已归档或正在归档的事件，不存在或不属于该用户的id不算
+     */
+    private List<Long> archivedIds(Long userId, List<Long> ids) {
+        LocalDateTime writableFrom = eventArchiveStore.getWritableFrom();
+        if (writableFrom == null) {
+            return List.of();
+        }
+        Map<Long, LocalDateTime> hot = query().select("id", "timestamp").eq("user_id", userId).in("id", ids).list().stream()
+                .collect(Collectors.toMap(Event::getId, Event::getTimestamp, (a, b) -> a));
+        return ids.stream()
+                .filter(id -> hot.containsKey(id)
+                        ? hot.get(id).isBefore(writableFrom)
+                        : eventArchiveStore.isArchived(userId, id))
+                .collect(Collectors.toList());
+    }
 
-        long total = events.size();
-        long confirmed = events.stream().filter(e -> e.getEventType() == 0).count();
-        long falseAlarm = events.stream().filter(e -> e.getEventType() == 1).count();
-        long emergency = events.stream().filter(e -> e.getEventType() == 2).count();
+    /**
+     * 在当前事务中修改fall_events前调用，事务结束（提交或回滚）之前归档不会开始，见EventArchiveStore.beginMutation
+     * @return 可以修改的最早时间，为null时不限制
+     */
+    private LocalDateTime beginMutation() {
+        // 先注册再加锁，不在事务中时注册失败，不会留下未释放的锁
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                eventArchiveStore.endMutation();
+            }
+        });
+        return eventArchiveStore.beginMutation();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Result getEventStats() {
+        UserDTO user = UserHolder.getUser();
+        if (user == null) {
+            return Result.fail("用户未登录");
+        }
+        // 计数由saveEvent/deleteEvent增量维护，不再加载全部事件
+        EventStats eventStats = eventStatsService.getStats(user.getId());
 
         HashMap<String, Long> stats = new HashMap<>();
-        stats.put("total", total);
-        stats.put("confirmed", confirmed);
-        stats.put("falseAlarm", falseAlarm);
-        stats.put("emergency", emergency);
+        stats.put("total", eventStats.getTotal());
+        stats.put("confirmed", eventStats.getConfirmed());
+        stats.put("falseAlarm", eventStats.getFalseAlarm());
+        stats.put("emergency", eventStats.getEmergency());
 
         return Result.ok(stats);
     }
+
+    @Override
+    public Result getEventTimeline(LocalDateTime from, LocalDateTime to, String granularity) {
+        UserDTO user = UserHolder.getUser();
+        if (user == null) {
+            return Result.fail("用户未登录");
+        }
+
+        String bucketType;
+        int maxDays;
+        if ("hour".equalsIgnoreCase(granularity)) {
+            bucketType = EventRollup.GRANULARITY_HOUR;
+            maxDays = SystemConstant.MAX_TIMELINE_HOUR_DAYS;
+        } else if ("day".equalsIgnoreCase(granularity)) {
+            bucketType = EventRollup.GRANULARITY_DAY;
+            maxDays = SystemConstant.MAX_TIMELINE_DAY_DAYS;
+        } else {
+            return Result.fail("granularity只支持hour或day");
+        }
+
+        if (to == null) {
+            to = LocalDateTime.now();
+        }
+        if (from == null) {
+            from = to.minusDays(SystemConstant.DEFAULT_TIMELINE_DAYS);
+        }
+        if (!from.isBefore(to)) {
+            return Result.fail("from必须早于to");
+        }
+        if (from.plusDays(maxDays).isBefore(to)) {
+            return Result.fail("查询时间跨度不能超过" + maxDays + "天");
+        }
+
+        // 直接读取汇总表，不扫描fall_events
+        List<EventTimelineDTO> buckets = eventStatsService.getTimeline(user.getId(), bucketType, from, to);
+        return Result.ok(buckets);
+    }
+
+    @Override
+    public Result searchEvents(String q, Integer limit) {
+        UserDTO user = UserHolder.getUser();
+        if (user == null) {
+            return Result.fail("用户未登录");
+        }
+        if (StrUtil.isBlank(q)) {
+            return Result.fail("搜索内容不能为空");
+        }
+        if (limit == null || limit < 1) {
+            limit = SystemConstant.DEFAULT_SEARCH_SIZE;
+        }
+        // 只查询内存索引，不访问fall_events
+        List<EventSearchDTO> results = eventSearchIndex.search(user.getId(), q, limit);
+        return Result.ok(results);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportEvents(Long userId, String format, OutputStream out) throws IOException {
+        // 逐行从游标写到输出流，堆内存占用与历史记录数量无关
+        LocalDateTime watermark = eventArchiveStore.getWatermark();
+        // dialog直接读成JSON文本原样输出，不解析成List<ChatDialog>
+        try (Cursor<EventDTO> cursor = baseMapper.streamJsonByUser(userId, watermark)) {
+            Stream<EventDTO> events = StreamSupport.stream(cursor.spliterator(), false);
+            if (watermark != null) {
+                // 热数据之后按块接着输出归档事件
+                Stream<EventDTO> archived = Stream.iterate(0L, skip -> skip + EXPORT_ARCHIVE_PAGE)
+                        .map(skip -> eventArchiveStore.readPage(userId, skip, EXPORT_ARCHIVE_PAGE))
+                        .takeWhile(page -> !page.isEmpty())
+                        .flatMap(List::stream)
+                        .map(this::toEventDTO);
+                events = Stream.concat(events, archived);
+            }
+            if (SystemConstant.EXPORT_FORMAT_CSV.equals(format)) {
+                writeCsv(events.iterator(), out);
+            } else {
+                writeNdjson(events.iterator(), out);
+            }
+        }
+    }
+
+    private void writeNdjson(Iterator<EventDTO> events, OutputStream out) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(out);
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        int count = 0;
+        while (events.hasNext()) {
+            generator.writeObject(events.next());
+            generator.writeRaw('\n');
+            if (++count % EXPORT_FLUSH_ROWS == 0) {
+                generator.flush();
+            }
+        }
+        generator.flush();
+    }
+
+    private void writeCsv(Iterator<EventDTO> events, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        // BOM，便于Excel识别UTF-8
+        writer.write('\uFEFF');
+        writer.write("id,timestamp,eventType,imageUrl,repeatCount,dialog\r\n");
+        int count = 0;
+        while (events.hasNext()) {
+            EventDTO event = events.next();
+            writer.write(String.valueOf(event.getId()));
+            writer.write(',');
+            writer.write(event.getTimestamp() == null ? "" : event.getTimestamp().toString());
+            writer.write(',');
+            writer.write(event.getEventType() == null ? "" : event.getEventType().toString());
+            writer.write(',');
+            writer.write(csvField(event.getImageUrl()));
+            writer.write(',');
+            writer.write(String.valueOf(event.getRepeatCount() == null ? 1 : event.getRepeatCount()));
+            writer.write(',');
+            writer.write(event.getDialog() == null ? "" : csvField(event.getDialog().getValue()));
+            writer.write("\r\n");
+            if (++count % EXPORT_FLUSH_ROWS == 0) {
+                writer.flush();
+            }
+        }
+        writer.flush();
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    /**
+     * 事件写入/删除后的通知，需在同一事务中调用
+     * @param saved 新写入或被修改的事件
+     * @param removed 被删除的事件
+     */
+    private void afterEventsChanged(Collection<Event> saved, Collection<Event> removed) {
+        eventSearchIndex.onEventsSaved(saved);
+        eventSearchIndex.onEventsRemoved(removed);
+        List<Long> userIds = Stream.concat(saved.stream(), removed.stream())
+                .map(Event::getUserId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+        eventListCache.invalidate(userIds);
+        dashboardCache.invalidate(userIds);
+        replicaFreshnessGuard.markWrite(userIds);
+        eventFeedHub.onEventsChanged(
+                saved.stream().map(this::toSummaryDTO).collect(Collectors.toList()),
+                removed.stream().map(this::toSummaryDTO).collect(Collectors.toList()));
+    }
+
+    @Override
+    public void onEventsPurged(List<Event> removed) {
+        for (int i = 0; i < removed.size(); i += SystemConstant.BATCH_MUTATION_CHUNK) {
+            afterEventsChanged(List.of(), removed.subList(i, Math.min(i + SystemConstant.BATCH_MUTATION_CHUNK, removed.size())));
+        }
+    }
+
+    /**
+     * 带dialog的完整事件，用于归档读出的事件
+     */
+    private EventDTO toEventDTO(Event event) {
+        EventDTO dto = toSummaryDTO(event);
+        byte[] dialog = CompressedChatDialogListTypeHandler.toJson(event.getDialog());
+        dto.setDialog(dialog == null ? null : new RawJson(dialog));
+        return dto;
+    }
+
+    /**
+     * 列表只返回摘要，归档事件读出时带有dialog，这里不输出
+     */
+    private EventDTO toSummaryDTO(Event event) {
+        EventDTO dto = new EventDTO();
+        dto.setId(event.getId());
+        dto.setUserId(event.getUserId());
+        dto.setTimestamp(event.getTimestamp());
+        dto.setEventType(event.getEventType());
+        // 新增：设置imageUrl
+        dto.setImageUrl(event.getImageUrl());
+        dto.setRepeatCount(event.getRepeatCount());
+        return dto;
+    }
 }
@@ -0,0 +1,161 @@
+package com.falldetection.backend.service.impl;
+
+import com.baomidou.mybatisplus.extension.service.impl.ServiceImpl;
+import com.falldetection.backend.dto.EventTimelineDTO;
+import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.entity.EventRollup;
+import com.falldetection.backend.entity.EventStats;
+import com.falldetection.backend.mapper.EventRollupMapper;
+import com.falldetection.backend.mapper.EventStatsMapper;
+import com.falldetection.backend.service.EventArchiveStore;
+import com.falldetection.backend.service.IEventStatsService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+@Slf4j
+public class EventStatsServiceImpl extends ServiceImpl<EventStatsMapper, EventStats> implements IEventStatsService {
+
+    @Autowired
+    private EventRollupMapper eventRollupMapper;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EventArchiveStore eventArchiveStore;
+
+    @Override
+    public EventStats getStats(Long userId) {
+        EventStats stats = getById(userId);
+        if (stats == null) {
+            // 计数表上线前的老用户，第一次访问时补齐；调用方可能在只读事务（副本）中，写入放到新事务
+            TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+            template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+            stats = template.execute(status -> {
+                rebuildUserStats(userId);
+                return getById(userId);
+            });
+        }
+        return stats;
+    }
+
+    @Override
+    public void onEventsSaved(Collection<Event> events) {
+        applyDelta(events, 1);
+    }
+
+    @Override
+    public void onEventsRemoved(Collection<Event> events) {
+        applyDelta(events, -1);
+    }
+
+    @Override
+    public List<EventTimelineDTO> getTimeline(Long userId, String granularity, LocalDateTime from, LocalDateTime to) {
+        return eventRollupMapper.selectTimeline(userId, granularity, from, to);
+    }
+
+    @Override
+    public void rebuildAll() {
+        // 已归档的时间桶不再从fall_events重建
+        LocalDateTime since = eventArchiveStore.getWatermark();
+        // 先清零没有热数据的用户，只有归档数据的用户随后在循环中补回归档计数
+        int reset = baseMapper.resetOrphans();
+        int orphanBuckets = eventRollupMapper.deleteOrphans(since);
+        Set<Long> userIds = new LinkedHashSet<>(baseMapper.selectEventUserIds());
+        userIds.addAll(eventArchiveStore.getArchivedUserIds());
+        // 按用户逐个重建，避免单条语句长时间锁住整张fall_events
+        for (Long userId : userIds) {
+            transactionTemplate.executeWithoutResult(status -> {
+                rebuildUserStats(userId);
+                eventRollupMapper.deleteByUser(userId, since);
+                eventRollupMapper.rebuildUser(userId, since);
+            });
+        }
+        log.info("事件计数重建完成. [users={}, reset={}, orphanBuckets={}]", userIds.size(), reset, orphanBuckets);
+    }
+
+    /**
+     * 调用方需保证与事件的写入/删除处于同一事务中
+     */
+    private void applyDelta(Collection<Event> events, int sign) {
+        Map<Long, EventStats> deltas = new HashMap<>();
+        Map<String, EventRollup> rollupDeltas = new HashMap<>();
+        for (Event event : events) {
+            if (event.getUserId() == null) {
+                continue;
+            }
+            EventStats delta = deltas.computeIfAbsent(event.getUserId(),
+                    id -> new EventStats(id, 0L, 0L, 0L, 0L));
+            delta.setTotal(delta.getTotal() + sign);
+            int type = event.getEventType() == null ? -1 : event.getEventType();
+            switch (type) {
+                case 0 -> delta.setConfirmed(delta.getConfirmed() + sign);
+                case 1 -> delta.setFalseAlarm(delta.getFalseAlarm() + sign);
+                case 2 -> delta.setEmergency(delta.getEmergency() + sign);
+                default -> {
+                }
+            }
+            if (event.getTimestamp() != null) {
+                LocalDateTime hour = event.getTimestamp().truncatedTo(ChronoUnit.HOURS);
+                LocalDateTime day = event.getTimestamp().truncatedTo(ChronoUnit.DAYS);
+                addRollupDelta(rollupDeltas, event.getUserId(), EventRollup.GRANULARITY_HOUR, hour, type, sign);
+                addRollupDelta(rollupDeltas, event.getUserId(), EventRollup.GRANULARITY_DAY, day, type, sign);
+            }
+        }
+        for (EventStats delta : deltas.values()) {
+            if (baseMapper.addDelta(delta) == 0) {
+                // 还没有计数行：事件已在当前事务内写入/删除，直接全量统计该用户
+                rebuildUserStats(delta.getUserId());
+            }
+        }
+        if (!rollupDeltas.isEmpty()) {
+            eventRollupMapper.addDeltas(rollupDeltas.values());
+        }
+    }
+
+    /**
+     * 从fall_events重新统计用户计数，加上已归档事件的计数后覆盖写入
+     * <p>
+     * 先锁计数行再统计：并发写入事件的事务在addDelta处等待本事务提交后再累加，
+     * 而它的事件不在本事务的统计快照中，不会重复计数
+     */
+    private void rebuildUserStats(Long userId) {
+        baseMapper.lockUser(userId);
+        EventStats stats = baseMapper.countUser(userId);
+        EventStats archived = eventArchiveStore.getArchivedStats(userId);
+        if (archived != null) {
+            stats.setTotal(stats.getTotal() + archived.getTotal())
+                    .setConfirmed(stats.getConfirmed() + archived.getConfirmed())
+                    .setFalseAlarm(stats.getFalseAlarm() + archived.getFalseAlarm())
+                    .setEmergency(stats.getEmergency() + archived.getEmergency());
+        }
+        baseMapper.replace(stats);
+    }
+
+    private void addRollupDelta(Map<String, EventRollup> rollupDeltas, Long userId, String granularity,
+                                LocalDateTime bucketStart, int eventType, int sign) {
+        EventRollup delta = rollupDeltas.computeIfAbsent(userId + ":" + granularity + ":" + bucketStart,
+                key -> new EventRollup(userId, granularity, bucketStart, 0L, 0L, 0L, 0L));
+        delta.setTotal(delta.getTotal() + sign);
+        switch (eventType) {
+            case 0 -> delta.setConfirmed(delta.getConfirmed() + sign);
+            case 1 -> delta.setFalseAlarm(delta.getFalseAlarm() + sign);
+            case 2 -> delta.setEmergency(delta.getEmergency() + sign);
+            default -> {
+            }
+        }
+    }
+}
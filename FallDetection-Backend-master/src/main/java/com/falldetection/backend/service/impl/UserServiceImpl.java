@@ -13,6 +13,7 @@ import com.falldetection.backend.dto.Result;
 import com.falldetection.backend.entity.User;
 import com.falldetection.backend.mapper.UserMapper;
 import com.falldetection.backend.service.IUserService;
+import com.falldetection.backend.service.ReplicaFreshnessGuard;
 import com.falldetection.backend.utils.PasswordEncoder;
 import com.falldetection.backend.utils.RedisConstants;
 import com.falldetection.backend.utils.RegexUtils;
@@ -20,6 +21,7 @@ import com.falldetection.backend.utils.UserHolder;
 import jakarta.annotation.Resource;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -33,6 +35,9 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     @Resource
     private StringRedisTemplate stringRedisTemplate;
 
+    @Resource
+    private ReplicaFreshnessGuard replicaFreshnessGuard;
+
     @Override
     public Result register(RegisterDTO registerDTO) {
         // 1. 校验手机号或邮箱
@@ -92,6 +97,8 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
 
         // 6. 保存用户
         save(user);
+        // 注册后紧接着登录、查询，短时间内读主库
+        replicaFreshnessGuard.markWrite(user.getId());
         return Result.ok();
     }
 
@@ -136,6 +143,7 @@ public class UserServiceImpl extends ServiceImpl<UserMapper, User> implements IU
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Result me() {
         UserDTO userDTO = UserHolder.getUser();
         if (userDTO == null) {
@@ -0,0 +1,51 @@
+package com.falldetection.backend.utils;
+
+import cn.hutool.core.util.StrUtil;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 事件列表游标分页的位置，对应上一页最后一条记录的 (timestamp, id)
+ * 对客户端以不透明的Base64URL字符串传递
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class EventCursor {
+    private static final String SEPARATOR = "|";
+
+    private LocalDateTime timestamp;
+    private Long id;
+
+    public String encode() {
+        String raw = timestamp + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * 解析游标字符串
+     * @param token 客户端传回的游标
+     * @return 游标位置，格式不正确时返回null
+     */
+    public static EventCursor decode(String token) {
+        if (StrUtil.isBlank(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index <= 0) {
+                return null;
+            }
+            return new EventCursor(LocalDateTime.parse(raw.substring(0, index)),
+                    Long.valueOf(raw.substring(index + 1)));
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
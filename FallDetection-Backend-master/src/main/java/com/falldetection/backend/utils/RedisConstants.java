@@ -3,4 +3,14 @@ package com.falldetection.backend.utils;
 public class RedisConstants {
     public static final String LOGIN_USER_KEY = "login:token:";
     public static final Long LOGIN_USER_TTL = 36000L;
+
+    // 事件列表缓存：key为 前缀 + userId:version:page:size
+    public static final String CACHE_EVENT_LIST_KEY = "cache:event:list:";
+    public static final String CACHE_EVENT_VERSION_KEY = "cache:event:version:";
+    public static final Long CACHE_EVENT_LIST_TTL = 600L;
+    // 只缓存前几页
+    public static final int CACHE_EVENT_LIST_PAGES = 3;
+
+    // 聊天会话：key为 前缀 + sessionId，List中每个元素是一轮问答
+    public static final String CHAT_SESSION_KEY = "chat:session:";
 }
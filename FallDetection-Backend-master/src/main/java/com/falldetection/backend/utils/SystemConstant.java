@@ -1,8 +1,21 @@
 package com.falldetection.backend.utils;
 
 public class SystemConstant {
-    public static final String IMAGE_UPLOAD_DIR = "";
     public static final String USER_NICK_NAME_PREFIX = "user_";
     public static final int DEFAULT_PAGE_SIZE = 5;
     public static final int MAX_PAGE_SIZE = 10;
+    // 时间线默认查询最近的天数
+    public static final int DEFAULT_TIMELINE_DAYS = 30;
+    // 时间线单次查询的最大跨度（天）
+    public static final int MAX_TIMELINE_HOUR_DAYS = 92;
+    public static final int MAX_TIMELINE_DAY_DAYS = 1100;
+    // 事件导出格式
+    public static final String EXPORT_FORMAT_NDJSON = "ndjson";
+    public static final String EXPORT_FORMAT_CSV = "csv";
+    // 全文搜索默认返回的事件数
+    public static final int DEFAULT_SEARCH_SIZE = 20;
+    // 批量删除/修改类型单次最多指定的id数
+    public static final int MAX_BATCH_IDS = 1000;
+    // 批量操作每个事务处理的行数
+    public static final int BATCH_MUTATION_CHUNK = 500;
 }
@@ -0,0 +1,46 @@
+-- edge配置（SQLite）的建表脚本，启动时由 spring.sql.init 执行，已存在的表不会改动
+-- 与MySQL的差异：时间以 "yyyy-MM-dd HH:mm:ss.SSS" 文本存储（见 SqliteLocalDateTimeTypeHandler）；fall_events不分区，主键只有id
+
+CREATE TABLE IF NOT EXISTS `user` (
+    `user_id` INTEGER PRIMARY KEY AUTOINCREMENT,
+    `username` TEXT,
+    `password` TEXT,
+    `email` TEXT,
+    `phone_number` TEXT
+);
+
+CREATE TABLE IF NOT EXISTS `fall_events` (
+    `id` INTEGER PRIMARY KEY AUTOINCREMENT,
+    `user_id` INTEGER,
+    `timestamp` TEXT NOT NULL,
+    -- 事件类型（0:confirm, 1:false_alarm, 2:emergency）
+    `event_type` INTEGER,
+    -- 问答记录，压缩二进制
+    `dialog` BLOB,
+    `image_url` TEXT,
+    `repeat_count` INTEGER NOT NULL DEFAULT 1
+);
+
+CREATE INDEX IF NOT EXISTS `idx_user_timestamp_id` ON `fall_events` (`user_id`, `timestamp`, `id`);
+
+CREATE INDEX IF NOT EXISTS `idx_timestamp` ON `fall_events` (`timestamp`);
+
+CREATE TABLE IF NOT EXISTS `fall_event_stats` (
+    `user_id` INTEGER PRIMARY KEY,
+    `total` INTEGER NOT NULL DEFAULT 0,
+    `confirmed` INTEGER NOT NULL DEFAULT 0,
+    `false_alarm` INTEGER NOT NULL DEFAULT 0,
+    `emergency` INTEGER NOT NULL DEFAULT 0
+);
+
+CREATE TABLE IF NOT EXISTS `fall_event_rollup` (
+    `user_id` INTEGER NOT NULL,
+    -- H: 小时, D: 天
+    `granularity` TEXT NOT NULL,
+    `bucket_start` TEXT NOT NULL,
+    `total` INTEGER NOT NULL DEFAULT 0,
+    `confirmed` INTEGER NOT NULL DEFAULT 0,
+    `false_alarm` INTEGER NOT NULL DEFAULT 0,
+    `emergency` INTEGER NOT NULL DEFAULT 0,
+    PRIMARY KEY (`user_id`, `granularity`, `bucket_start`)
+);
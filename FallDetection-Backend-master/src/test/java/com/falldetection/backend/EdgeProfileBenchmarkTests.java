@@ -0,0 +1,123 @@
+package com.falldetection.backend;
+
+import com.falldetection.backend.dto.UserDTO;
+import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.utils.UserHolder;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * edge配置的启动耗时和单个事件的写入耗时：逐条提交（同步写入）与按批提交（异步写入的flush路径）
+ * <p>
+ * 事件数由 -Dbenchmark.events 指定（默认1000），批大小与application-edge.yaml的batch-size一致。
+ * 启动耗时测量的配置由 -Dbenchmark.profiles 指定（默认edge），有MySQL时可传 -Dbenchmark.profiles= 对比默认配置
+ */
+@Tag("benchmark")
+class EdgeProfileBenchmarkTests extends EdgeProfileTestSupport {
+    private static final int BATCH_SIZE = 100;
+    private static final int WARMUP = 200;
+    private static final long MAX_STARTUP_MS = Long.getLong("benchmark.maxStartupMs", 30_000L);
+
+    /** 每个事件用不同的用户，避免被合并 */
+    private static final AtomicLong NEXT_USER_ID = new AtomicLong(4_000_000L);
+
+    @Autowired
+    private IEventService eventService;
+
+    @Test
+    void batchedCommitsAreCheaperPerEventThanSingleCommits() {
+        int events = Integer.getInteger("benchmark.events", 1_000);
+        single(WARMUP);
+        batched(WARMUP);
+
+        long[] singleNanos = single(events);
+        double batchedNanos = batched(events);
+        Arrays.sort(singleNanos);
+        double singleMean = Arrays.stream(singleNanos).average().orElse(0);
+        System.out.printf("edge per-event: single mean=%.3fms p50=%.3fms p99=%.3fms, batched(%d) mean=%.3fms%n",
+                singleMean / 1e6, singleNanos[events / 2] / 1e6, singleNanos[events * 99 / 100] / 1e6,
+                BATCH_SIZE, batchedNanos / 1e6);
+
+        assertTrue(batchedNanos < singleMean, "batched " + batchedNanos + "ns vs single " + singleMean + "ns per event");
+    }
+
+    @Test
+    void startupFitsTheBudget() throws IOException {
+        Path dir = Files.createTempDirectory("fall-detection-startup");
+        String profiles = System.getProperty("benchmark.profiles", "edge");
+        long start = System.nanoTime();
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(BackendApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles(profiles.isEmpty() ? new String[0] : profiles.split(","))
+                // 命令行参数优先于application-*.yaml，properties()设置的默认值会被覆盖
+                .run("--spring.datasource.url=" + System.getProperty("benchmark.datasource.url",
+                                "jdbc:sqlite:" + dir.resolve("fall_detection.db") + "?journal_mode=WAL&synchronous=NORMAL"
+                                        + "&transaction_mode=IMMEDIATE&busy_timeout=5000"),
+                        "--event.ingest.journal-dir=" + dir.resolve("ingest"),
+                        "--event.search.dir=" + dir.resolve("search"),
+                        "--event.archive.dir=" + dir.resolve("archive"))) {
+            long millis = (System.nanoTime() - start) / 1_000_000;
+            System.out.printf("startup [profiles=%s]: %dms%n", profiles, millis);
+            assertTrue(millis < MAX_STARTUP_MS, "startup " + millis + "ms");
+        }
+    }
+
+    /**
+     * @return 每次saveEvent（一个事务、一次提交）的耗时（纳秒）
+     */
+    private long[] single(int count) {
+        long[] nanos = new long[count];
+        for (int i = 0; i < count; i++) {
+            UserDTO user = new UserDTO();
+            user.setId(NEXT_USER_ID.incrementAndGet());
+            UserHolder.saveUser(user);
+            try {
+                long start = System.nanoTime();
+                eventService.saveEvent(null, i % 3, null);
+                nanos[i] = System.nanoTime() - start;
+            } finally {
+                UserHolder.removeUser();
+            }
+        }
+        return nanos;
+    }
+
+    /**
+     * @return 按批写入时平均每个事件的耗时（纳秒）
+     */
+    private double batched(int count) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        long total = 0;
+        for (int from = 0; from < count; from += BATCH_SIZE) {
+            List<Event> batch = new ArrayList<>(BATCH_SIZE);
+            for (int i = from; i < Math.min(count, from + BATCH_SIZE); i++) {
+                batch.add(new Event()
+                        .setUserId(NEXT_USER_ID.incrementAndGet())
+                        .setTimestamp(now)
+                        .setEventType(i % 3)
+                        .setRepeatCount(1));
+            }
+            long start = System.nanoTime();
+            eventService.saveEventBatch(batch);
+            total += System.nanoTime() - start;
+        }
+        return (double) total / count;
+    }
+}
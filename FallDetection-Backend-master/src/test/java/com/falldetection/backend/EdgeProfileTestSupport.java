@@ -0,0 +1,40 @@
+package com.falldetection.backend;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 基于edge配置（SQLite文件库）的集成测试基类，不需要MySQL
+ * 所有子类共用同一个Spring上下文和临时目录；事件同步写入，便于在测试线程中断言
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@ActiveProfiles("edge")
+public abstract class EdgeProfileTestSupport {
+
+    protected static final Path DATA_DIR;
+
+    static {
+        try {
+            DATA_DIR = Files.createTempDirectory("fall-detection-test");
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @DynamicPropertySource
+    static void edgeProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> "jdbc:sqlite:" + DATA_DIR.resolve("fall_detection.db")
+                + "?journal_mode=WAL&synchronous=NORMAL&transaction_mode=IMMEDIATE&busy_timeout=5000");
+        registry.add("event.ingest.mode", () -> "sync");
+        registry.add("event.search.dir", () -> DATA_DIR.resolve("search").toString());
+        registry.add("event.archive.dir", () -> DATA_DIR.resolve("archive").toString());
+        registry.add("event.image.dir", () -> DATA_DIR.resolve("images").toString());
+    }
+}
@@ -0,0 +1,42 @@
+package com.falldetection.backend.config;
+
+import com.falldetection.backend.service.ReplicaFreshnessGuard;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DataSourceConfigTests {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void poolsAreClosedWithTheContext() {
+        List<HikariDataSource> pools = new ArrayList<>();
+        new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(DataSourceAutoConfiguration.class))
+                .withUserConfiguration(DataSourceRoutingConfig.class, ReplicaFreshnessGuard.class, DataSourceConfig.class)
+                .withPropertyValues(
+                        "spring.datasource.url=jdbc:h2:mem:pool-primary",
+                        "datasource.routing.replicas[0].url=jdbc:h2:mem:pool-replica-0",
+                        "datasource.routing.replicas[1].url=jdbc:h2:mem:pool-replica-1")
+                .run(context -> {
+                    assertEquals(1, new JdbcTemplate(context.getBean(DataSource.class)).queryForObject("SELECT 1", Integer.class));
+                    pools.addAll((List<HikariDataSource>) ReflectionTestUtils.getField(context.getBean(DataSourceConfig.class), "pools"));
+                    assertEquals(3, pools.size());
+                    pools.forEach(pool -> assertFalse(pool.isClosed()));
+                });
+
+        pools.forEach(pool -> assertTrue(pool.isClosed(), pool.getJdbcUrl()));
+    }
+}
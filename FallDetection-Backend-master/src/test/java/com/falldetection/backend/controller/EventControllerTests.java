@@ -0,0 +1,67 @@
+package com.falldetection.backend.controller;
+
+import com.falldetection.backend.EdgeProfileTestSupport;
+import com.falldetection.backend.dto.ImageUploadDTO;
+import com.falldetection.backend.dto.Result;
+import com.falldetection.backend.dto.UserDTO;
+import com.falldetection.backend.service.EventImageStore;
+import com.falldetection.backend.utils.UserHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventControllerTests extends EdgeProfileTestSupport {
+
+    @Autowired
+    private EventController eventController;
+
+    @Autowired
+    private EventImageStore eventImageStore;
+
+    @BeforeEach
+    void setUp() {
+        UserDTO user = new UserDTO();
+        user.setId(5_000_001L);
+        UserHolder.saveUser(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserHolder.removeUser();
+    }
+
+    @Test
+    void failedAttachLeavesTheUploadForTheSweep() throws IOException {
+        byte[] jpeg = jpeg();
+        Result result = eventController.uploadImage(new MockMultipartFile("file", jpeg), Long.MAX_VALUE);
+        assertFalse(result.getSuccess());
+
+        // 文件可能已被同时上传相同内容的请求引用，请求中不删除，由EventImageSweepJob清理
+        ImageUploadDTO uploaded = (ImageUploadDTO) eventController.uploadImage(new MockMultipartFile("file", jpeg), null).getData();
+        assertTrue(uploaded.getDeduplicated());
+        assertNotNull(eventImageStore.resolve(uploaded.getImageUrl()));
+    }
+
+    /**
+     * @return 每次内容不同的JPEG（只需要文件头）
+     */
+    private static byte[] jpeg() {
+        byte[] body = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        byte[] jpeg = new byte[3 + body.length];
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        jpeg[2] = (byte) 0xFF;
+        System.arraycopy(body, 0, jpeg, 3, body.length);
+        return jpeg;
+    }
+}
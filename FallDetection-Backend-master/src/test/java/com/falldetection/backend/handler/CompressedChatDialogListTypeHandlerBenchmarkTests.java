@@ -0,0 +1,77 @@
+package com.falldetection.backend.handler;
+
+import cn.hutool.json.JSONUtil;
+import com.falldetection.backend.dto.ChatDialog;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 压缩格式与原来的JSON文本（hutool JSONUtil读写）对比存储大小和解码耗时
+ * 对话为合成的4轮中文问答，真实数据的压缩率取决于回答的重复程度
+ */
+@Tag("benchmark")
+class CompressedChatDialogListTypeHandlerBenchmarkTests {
+    private static final int WARMUP = 20_000;
+    private static final int BATCHES = 31;
+    private static final int BATCH_SIZE = 2_000;
+
+    @Test
+    void compressedDialogIsSmallerAndDecodesFaster() {
+        List<ChatDialog> dialogs = dialogs();
+        byte[] json = JSONUtil.toJsonStr(dialogs).getBytes(StandardCharsets.UTF_8);
+        byte[] compressed = CompressedChatDialogListTypeHandler.encode(dialogs);
+        assertEquals(dialogs, CompressedChatDialogListTypeHandler.decode(compressed));
+        assertEquals(dialogs, JSONUtil.toList(new String(json, StandardCharsets.UTF_8), ChatDialog.class));
+
+        double jsonNanos = median(() -> JSONUtil.toList(new String(json, StandardCharsets.UTF_8), ChatDialog.class));
+        double compressedNanos = median(() -> CompressedChatDialogListTypeHandler.decode(compressed));
+        System.out.printf("json=%dB compressed=%dB ratio=%.2f decode json=%.1fus compressed=%.1fus%n",
+                json.length, compressed.length, (double) compressed.length / json.length,
+                jsonNanos / 1e3, compressedNanos / 1e3);
+
+        assertTrue(compressed.length * 3 < json.length, "compressed " + compressed.length + "B vs json " + json.length + "B");
+        assertTrue(compressedNanos < jsonNanos, "decode compressed " + compressedNanos + "ns vs json " + jsonNanos + "ns");
+    }
+
+    /**
+     * @return 单次调用耗时的中位数（纳秒），按批计时以减小计时误差
+     */
+    private static double median(Supplier<?> call) {
+        for (int i = 0; i < WARMUP; i++) {
+            call.get();
+        }
+        double[] samples = new double[BATCHES];
+        for (int b = 0; b < BATCHES; b++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                call.get();
+            }
+            samples[b] = (double) (System.nanoTime() - start) / BATCH_SIZE;
+        }
+        Arrays.sort(samples);
+        return samples[BATCHES / 2];
+    }
+
+    private static List<ChatDialog> dialogs() {
+        String[] questions = {"我刚才摔倒了，现在腰有点疼", "需要马上去医院吗", "家里只有我一个人怎么办", "好的，我先坐着休息"};
+        List<ChatDialog> dialogs = new ArrayList<>();
+        for (int i = 0; i < questions.length; i++) {
+            StringBuilder answer = new StringBuilder();
+            for (int j = 0; j <= i; j++) {
+                answer.append("请先不要急着起身，保持当前姿势，深呼吸放松。如果感到剧烈疼痛、头晕或者无法活动四肢，")
+                        .append("请立即拨打120急救电话，我已经通知了您的紧急联系人。");
+            }
+            dialogs.add(new ChatDialog(questions[i], answer.toString()));
+        }
+        return dialogs;
+    }
+}
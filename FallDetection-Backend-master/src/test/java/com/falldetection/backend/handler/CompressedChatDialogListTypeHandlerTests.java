@@ -0,0 +1,75 @@
+package com.falldetection.backend.handler;
+
+import com.falldetection.backend.dto.ChatDialog;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompressedChatDialogListTypeHandlerTests {
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private static final List<ChatDialog> DIALOGS = List.of(
+            new ChatDialog("我摔倒了 \"救命\"", "已通知紧急联系人\n请保持不动"),
+            new ChatDialog("", null),
+            new ChatDialog(null, "\u0001控制字符"));
+
+    @Test
+    void encodeDecodeRoundTrip() {
+        byte[] data = CompressedChatDialogListTypeHandler.encode(DIALOGS);
+
+        assertTrue(CompressedChatDialogListTypeHandler.isCompressed(data));
+        assertEquals(DIALOGS, CompressedChatDialogListTypeHandler.decode(data));
+        assertEquals(List.of(), CompressedChatDialogListTypeHandler.decode(
+                CompressedChatDialogListTypeHandler.encode(List.of())));
+        assertNull(CompressedChatDialogListTypeHandler.decode(null));
+        assertNull(CompressedChatDialogListTypeHandler.decode(new byte[0]));
+    }
+
+    @Test
+    void legacyJsonIsStillReadable() throws Exception {
+        byte[] json = OBJECT_MAPPER.writeValueAsBytes(DIALOGS);
+
+        assertEquals(DIALOGS, CompressedChatDialogListTypeHandler.decode(json));
+    }
+
+    @Test
+    void toJsonMatchesJacksonSerialization() throws Exception {
+        byte[] expected = OBJECT_MAPPER.writeValueAsBytes(DIALOGS);
+
+        assertArrayEquals(expected, CompressedChatDialogListTypeHandler.toJson(
+                CompressedChatDialogListTypeHandler.encode(DIALOGS)));
+        assertArrayEquals(expected, CompressedChatDialogListTypeHandler.toJson(DIALOGS));
+    }
+
+    @Test
+    void toJsonWritesSupplementaryCharactersAsUtf8() throws Exception {
+        // Jackson把BMP以外的字符写成\uD83D\uDE00转义，直接输出UTF-8字节时是4字节原文，两者解析结果相同
+        List<ChatDialog> dialogs = List.of(new ChatDialog("😀", "🚑 120"));
+        byte[] json = CompressedChatDialogListTypeHandler.toJson(CompressedChatDialogListTypeHandler.encode(dialogs));
+
+        assertEquals("[{\"question\":\"😀\",\"answer\":\"🚑 120\"}]", new String(json, StandardCharsets.UTF_8));
+        assertEquals(dialogs, OBJECT_MAPPER.readValue(json, OBJECT_MAPPER.getTypeFactory()
+                .constructCollectionType(List.class, ChatDialog.class)));
+    }
+
+    @Test
+    void toJsonPassesValidLegacyJsonThrough() throws Exception {
+        byte[] json = OBJECT_MAPPER.writeValueAsBytes(DIALOGS);
+
+        assertSame(json, CompressedChatDialogListTypeHandler.toJson(json));
+        assertNull(CompressedChatDialogListTypeHandler.toJson("null".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalStateException.class,
+                () -> CompressedChatDialogListTypeHandler.toJson("{\"question\":1}".getBytes(StandardCharsets.UTF_8)));
+        assertThrows(IllegalStateException.class,
+                () -> CompressedChatDialogListTypeHandler.toJson("[{}] trailing".getBytes(StandardCharsets.UTF_8)));
+    }
+}
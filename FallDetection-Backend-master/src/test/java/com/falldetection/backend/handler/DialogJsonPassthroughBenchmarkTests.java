@@ -0,0 +1,96 @@
+package com.falldetection.backend.handler;
+
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.dto.RawJson;
+import com.falldetection.backend.dto.Result;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * /api/event/{id}/dialog 响应的两种写法：解码成List<ChatDialog>再由Jackson序列化，与按RawJson原样写出
+ * 分别测量压缩格式和旧版JSON文本的行；断言两者输出的字节相同，且原样写出更快
+ * 对话为合成的4轮中文问答，只含BMP字符（BMP以外的字符两种写法的转义不同，见CompressedChatDialogListTypeHandlerTests）
+ */
+@Tag("benchmark")
+class DialogJsonPassthroughBenchmarkTests {
+    private static final int WARMUP = 20_000;
+    private static final int BATCHES = 31;
+    private static final int BATCH_SIZE = 2_000;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @ParameterizedTest
+    @ValueSource(booleans = {true, false})
+    void rawPassthroughMatchesAndBeatsParseAndReencode(boolean compressed) throws Exception {
+        List<ChatDialog> dialogs = dialogs();
+        byte[] row = compressed
+                ? CompressedChatDialogListTypeHandler.encode(dialogs)
+                : objectMapper.writeValueAsBytes(dialogs);
+
+        assertArrayEquals(parsed(row), raw(row));
+        double parsedNanos = median(() -> parsed(row));
+        double rawNanos = median(() -> raw(row));
+        System.out.printf("%s row=%dB: parse+re-encode=%.1fus raw=%.1fus%n",
+                compressed ? "compressed" : "legacy json", row.length, parsedNanos / 1e3, rawNanos / 1e3);
+
+        assertTrue(rawNanos < parsedNanos, "raw " + rawNanos + "ns vs parse " + parsedNanos + "ns");
+    }
+
+    private byte[] parsed(byte[] row) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(Result.ok(CompressedChatDialogListTypeHandler.decode(row)));
+    }
+
+    private byte[] raw(byte[] row) throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(Result.ok(new RawJson(CompressedChatDialogListTypeHandler.toJson(row))));
+    }
+
+    /**
+     * @return 单次调用耗时的中位数（纳秒），按批计时以减小计时误差
+     */
+    private static double median(ThrowingSupplier call) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            call.get();
+        }
+        double[] samples = new double[BATCHES];
+        for (int b = 0; b < BATCHES; b++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                call.get();
+            }
+            samples[b] = (double) (System.nanoTime() - start) / BATCH_SIZE;
+        }
+        Arrays.sort(samples);
+        return samples[BATCHES / 2];
+    }
+
+    private static List<ChatDialog> dialogs() {
+        String[] questions = {"我刚才摔倒了，现在腰有点疼", "需要马上去医院吗", "家里只有我一个人怎么办", "好的，我先坐着休息"};
+        List<ChatDialog> dialogs = new ArrayList<>();
+        for (int i = 0; i < questions.length; i++) {
+            StringBuilder answer = new StringBuilder();
+            for (int j = 0; j <= i; j++) {
+                answer.append("请先不要急着起身，保持当前姿势，深呼吸放松。如果感到剧烈疼痛、头晕或者无法活动四肢，")
+                        .append("请立即拨打120急救电话，我已经通知了您的紧急联系人。");
+            }
+            dialogs.add(new ChatDialog(questions[i], answer.toString()));
+        }
+        return dialogs;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingSupplier {
+        Object get() throws Exception;
+    }
+}
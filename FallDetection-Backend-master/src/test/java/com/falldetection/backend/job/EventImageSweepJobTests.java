@@ -0,0 +1,109 @@
+package com.falldetection.backend.job;
+
+import com.falldetection.backend.EdgeProfileTestSupport;
+import com.falldetection.backend.dto.ImageUploadDTO;
+import com.falldetection.backend.dto.UserDTO;
+import com.falldetection.backend.service.EventImageStore;
+import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.utils.UserHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventImageSweepJobTests extends EdgeProfileTestSupport {
+
+    @Autowired
+    private EventImageSweepJob eventImageSweepJob;
+
+    @Autowired
+    private EventImageStore eventImageStore;
+
+    @Autowired
+    private IEventService eventService;
+
+    @BeforeEach
+    void setUp() {
+        UserDTO user = new UserDTO();
+        user.setId(6_000_001L);
+        UserHolder.saveUser(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserHolder.removeUser();
+    }
+
+    @Test
+    void onlyOldUnreferencedUploadsAreDeleted() throws IOException {
+        ImageUploadDTO referenced = store(jpeg());
+        assertTrue(eventService.saveEvent(null, 0, referenced.getImageUrl()).getSuccess());
+        ImageUploadDTO orphan = store(jpeg());
+        ImageUploadDTO recent = store(jpeg());
+        // 检测程序保存的截图不按<sha256>.jpg命名，不在清理范围内
+        Path detected = DATA_DIR.resolve("images").resolve("fall_" + UUID.randomUUID() + ".jpg");
+        Files.write(detected, jpeg());
+        age(eventImageStore.resolve(referenced.getImageUrl()), eventImageStore.resolve(orphan.getImageUrl()), detected);
+
+        eventImageSweepJob.sweepOrphans();
+
+        assertNull(eventImageStore.resolve(orphan.getImageUrl()));
+        assertNotNull(eventImageStore.resolve(referenced.getImageUrl()));
+        assertNotNull(eventImageStore.resolve(recent.getImageUrl()));
+        assertTrue(Files.exists(detected));
+    }
+
+    @Test
+    void reuploadRefreshesTheGracePeriod() throws IOException {
+        byte[] jpeg = jpeg();
+        ImageUploadDTO first = store(jpeg);
+        age(eventImageStore.resolve(first.getImageUrl()));
+
+        // 去重命中：另一个请求正要引用同一个文件
+        assertTrue(store(jpeg).getDeduplicated());
+        eventImageSweepJob.sweepOrphans();
+
+        assertNotNull(eventImageStore.resolve(first.getImageUrl()));
+    }
+
+    private ImageUploadDTO store(byte[] jpeg) throws IOException {
+        return eventImageStore.store(new ByteArrayInputStream(jpeg));
+    }
+
+    /**
+     * 把修改时间改到宽限期之前
+     */
+    private static void age(Path... files) throws IOException {
+        FileTime old = FileTime.from(Instant.now().minus(Duration.ofDays(2)));
+        for (Path file : files) {
+            Files.setLastModifiedTime(file, old);
+        }
+    }
+
+    /**
+     * @return 每次内容不同的JPEG（只需要文件头）
+     */
+    private static byte[] jpeg() {
+        byte[] body = UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8);
+        byte[] jpeg = new byte[3 + body.length];
+        jpeg[0] = (byte) 0xFF;
+        jpeg[1] = (byte) 0xD8;
+        jpeg[2] = (byte) 0xFF;
+        System.arraycopy(body, 0, jpeg, 3, body.length);
+        return jpeg;
+    }
+}
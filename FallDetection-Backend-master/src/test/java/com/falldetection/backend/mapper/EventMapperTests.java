@@ -0,0 +1,43 @@
+package com.falldetection.backend.mapper;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 只有流式读取的语句逐行取数据，连接串上不再开启useCursorFetch
+ */
+class EventMapperTests {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"streamByUser", "streamJsonByUser", "streamByUserBefore"})
+    void streamingStatementsFetchRowByRowOnMysql(String method) {
+        MappedStatement statement = statement(null, method);
+        assertEquals(Integer.MIN_VALUE, statement.getFetchSize());
+        assertEquals(ResultSetType.FORWARD_ONLY, statement.getResultSetType());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"streamByUser", "streamJsonByUser", "streamByUserBefore"})
+    void streamingStatementsUsePositiveFetchSizeOnSqlite(String method) {
+        // sqlite-jdbc不接受负数fetchSize
+        assertEquals(500, statement("sqlite", method).getFetchSize());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"selectDialogJson", "selectUserIdsBefore"})
+    void otherStatementsKeepDriverDefaults(String method) {
+        assertEquals(null, statement(null, method).getFetchSize());
+    }
+
+    private static MappedStatement statement(String databaseId, String method) {
+        MybatisConfiguration configuration = new MybatisConfiguration();
+        configuration.setDatabaseId(databaseId);
+        configuration.addMapper(EventMapper.class);
+        return configuration.getMappedStatement(EventMapper.class.getName() + "." + method);
+    }
+}
@@ -0,0 +1,95 @@
+package com.falldetection.backend.model;
+
+import com.falldetection.backend.config.QwenConfig;
+import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.data.message.UserMessage;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QwenStreamingChatModelTests {
+    private static final List<ChatMessage> MESSAGES = List.of(UserMessage.from("我摔倒了怎么办"));
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    // 每次向上游发起生成时创建一个sink，由测试控制输出
+    private final List<Sinks.Many<String>> upstreams = new ArrayList<>();
+    private final Supplier<Flux<String>> source = () -> {
+        Sinks.Many<String> sink = Sinks.many().unicast().onBackpressureBuffer();
+        upstreams.add(sink);
+        return sink.asFlux();
+    };
+
+    private QwenStreamingChatModel model;
+
+    @BeforeEach
+    void setUp() {
+        QwenConfig config = new QwenConfig();
+        config.setApiKey("test");
+        config.setBaseUrl("http://localhost");
+        config.setModelName("qwen-test");
+        model = new QwenStreamingChatModel(config, meterRegistry);
+    }
+
+    @Test
+    void lateJoinerGetsReplayAndCancellingOneKeepsTheOther() {
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        Disposable firstSubscription = coalesce().subscribe(first::add);
+        upstreams.get(0).tryEmitNext("先");
+        coalesce().subscribe(second::add);
+        firstSubscription.dispose();
+        upstreams.get(0).tryEmitNext("坐下");
+        upstreams.get(0).tryEmitComplete();
+
+        assertEquals(List.of("先"), first);
+        assertEquals(List.of("先", "坐下"), second);
+        assertEquals(1, upstreams.size());
+        assertEquals(1, count("upstream"));
+        assertEquals(1, count("coalesced"));
+    }
+
+    @Test
+    void requestIssuedOnCompletionStartsANewGeneration() {
+        List<String> retried = new ArrayList<>();
+        coalesce().subscribe(token -> { }, error -> { }, () -> coalesce().subscribe(retried::add));
+        upstreams.get(0).tryEmitNext("旧");
+        upstreams.get(0).tryEmitComplete();
+
+        assertEquals(2, upstreams.size());
+        upstreams.get(1).tryEmitNext("新");
+        assertEquals(List.of("新"), retried);
+        assertEquals(2, count("upstream"));
+        assertEquals(0, count("coalesced"));
+    }
+
+    @Test
+    void entryIsRemovedWhenAllSubscribersCancel() {
+        Disposable subscription = coalesce().subscribe();
+        subscription.dispose();
+
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(model, "inFlight")).isEmpty());
+        coalesce().subscribe();
+        assertEquals(2, upstreams.size());
+        assertEquals(2, count("upstream"));
+    }
+
+    private Flux<String> coalesce() {
+        return ReflectionTestUtils.invokeMethod(model, "coalesce", MESSAGES, source);
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("chat.model.requests").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,171 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.EventArchiveConfig;
+import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.mapper.EventMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 每个用例重新打开归档目录来模拟重启，fall_events用mock的EventMapper代替
+ */
+class EventArchiveStoreTests {
+    private static final LocalDateTime CUTOFF = LocalDateTime.of(2024, 1, 1, 0, 0, 0, 123_000_000);
+
+    @TempDir
+    Path dir;
+
+    private final EventMapper eventMapper = mock(EventMapper.class);
+
+    private EventArchiveConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new EventArchiveConfig();
+        config.setEnabled(true);
+        config.setDir(dir.toString());
+        config.setBlockSize(2);
+        when(eventMapper.deleteBefore(any(), anyInt())).thenReturn(0);
+    }
+
+    @Test
+    void committedArchiveIsReloadedWithExactWatermark() throws IOException {
+        List<Event> events = events(1L, 5);
+        stub(1L, events);
+        open().archiveBefore(CUTOFF);
+        verify(eventMapper).deleteBefore(CUTOFF, config.getDeleteChunkSize());
+
+        EventArchiveStore store = open();
+        assertEquals(CUTOFF, store.getWatermark());
+        assertEquals(5, store.count(1L));
+        // 最后一个块也要能从catalog读回
+        assertEquals(ids(events), ids(store.readPage(1L, 0, 10)));
+        assertEquals(1L, store.findById(1L, 1L).getId());
+    }
+
+    @Test
+    void crashBeforeCommitLeavesRowsHotAndDropsTheSegment() throws IOException {
+        stub(1L, events(1L, 3));
+        when(eventMapper.streamByUserBefore(eq(2L), any())).thenThrow(new IllegalStateException("connection lost"));
+        when(eventMapper.selectUserIdsBefore(any())).thenReturn(List.of(1L, 2L));
+
+        assertThrows(IllegalStateException.class, () -> open().archiveBefore(CUTOFF));
+        verify(eventMapper, never()).deleteBefore(any(), anyInt());
+        assertEquals(1, segmentCount());
+
+        EventArchiveStore store = open();
+        assertNull(store.getWatermark());
+        assertTrue(store.getArchivedUserIds().isEmpty());
+        assertEquals(0, segmentCount());
+    }
+
+    @Test
+    void segmentsRollAtTheSizeLimit() throws IOException {
+        config.setSegmentMaxBytes(1L);
+        List<Event> events = events(1L, 6);
+        stub(1L, events);
+        open().archiveBefore(CUTOFF);
+
+        assertEquals(3, segmentCount());
+        assertEquals(ids(events), ids(open().readPage(1L, 0, 10)));
+    }
+
+    @Test
+    void archiveWaitsForOpenMutationsThenFreezesOlderRows() throws Exception {
+        stub(1L, events(1L, 2));
+        EventArchiveStore store = open();
+        assertNull(store.beginMutation());
+
+        CompletableFuture<Void> archived = CompletableFuture.runAsync(() -> {
+            try {
+                store.archiveBefore(CUTOFF);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        Thread.sleep(200);
+        // 修改的事务还没结束，归档不能开始读取
+        assertFalse(archived.isDone());
+        verify(eventMapper, never()).selectUserIdsBefore(any());
+
+        store.endMutation();
+        archived.get(5, TimeUnit.SECONDS);
+        assertEquals(CUTOFF, store.beginMutation());
+        store.endMutation();
+        assertTrue(store.isArchived(1L, 2L));
+        assertFalse(store.isArchived(1L, 3L));
+    }
+
+    private EventArchiveStore open() throws IOException {
+        EventArchiveStore store = new EventArchiveStore();
+        ReflectionTestUtils.setField(store, "config", config);
+        ReflectionTestUtils.setField(store, "eventMapper", eventMapper);
+        ReflectionTestUtils.setField(store, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        store.load();
+        return store;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stub(Long userId, List<Event> events) {
+        Cursor<Event> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenAnswer(invocation -> events.iterator());
+        when(eventMapper.streamByUserBefore(eq(userId), any())).thenReturn(cursor);
+        when(eventMapper.selectUserIdsBefore(any())).thenReturn(List.of(userId));
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("segment-")).count();
+        }
+    }
+
+    /**
+     * @return 新到旧排列的事件，与streamByUserBefore的顺序一致
+     */
+    private static List<Event> events(Long userId, int count) {
+        List<Event> events = new ArrayList<>();
+        for (int i = count; i >= 1; i--) {
+            events.add(new Event()
+                    .setId((long) i)
+                    .setUserId(userId)
+                    .setTimestamp(LocalDateTime.of(2023, 6, 1, 8, 0).plusMinutes(i))
+                    .setEventType(i % 3)
+                    .setRepeatCount(1));
+        }
+        return events;
+    }
+
+    private static List<Long> ids(List<Event> events) {
+        return events.stream().map(Event::getId).collect(Collectors.toList());
+    }
+}
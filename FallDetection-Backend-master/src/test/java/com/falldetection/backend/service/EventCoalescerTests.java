@@ -0,0 +1,93 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.EventCoalesceConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.entity.Event;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class EventCoalescerTests {
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 8, 30, 0);
+
+    private EventCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        EventCoalesceConfig config = new EventCoalesceConfig();
+        config.setWindowSeconds(120);
+        config.setRingSize(2);
+        coalescer = new EventCoalescer();
+        ReflectionTestUtils.setField(coalescer, "config", config);
+    }
+
+    @Test
+    void foldMergesSameTypeWithinWindowOnly() {
+        Event first = event(null, 1L, 2, T0, "a.jpg", "救命");
+        List<Event> folded = coalescer.fold(List.of(
+                first,
+                event(null, 1L, 2, T0.plusSeconds(100), "b.jpg", "还在地上"),
+                // 距离上一次上报不超过窗口，链式合并
+                event(null, 1L, 2, T0.plusSeconds(200), null, null),
+                event(null, 1L, 0, T0.plusSeconds(210), null, null),
+                event(null, 2L, 2, T0.plusSeconds(220), null, null),
+                event(null, 1L, 2, T0.plusSeconds(400), null, null)));
+
+        assertEquals(List.of(3, 1, 1, 1), folded.stream().map(Event::getRepeatCount).collect(Collectors.toList()));
+        assertEquals("b.jpg", folded.get(0).getImageUrl());
+        assertEquals(List.of("救命", "还在地上"),
+                folded.get(0).getDialog().stream().map(ChatDialog::getQuestion).collect(Collectors.toList()));
+        // 合并在副本上进行，原事件不变，批次重试时不会重复累加
+        assertEquals(1, first.getRepeatCount());
+    }
+
+    @Test
+    void findReturnsLatestSameTypeEventInWindow() {
+        coalescer.onEventsSaved(List.of(
+                event(10L, 1L, 2, T0, null, null),
+                event(11L, 1L, 2, T0.plusSeconds(60), null, null)));
+
+        assertEquals(11L, coalescer.find(event(null, 1L, 2, T0.plusSeconds(150), null, null)).getEventId());
+        assertNull(coalescer.find(event(null, 1L, 0, T0.plusSeconds(150), null, null)));
+        assertNull(coalescer.find(event(null, 1L, 2, T0.plusSeconds(181), null, null)));
+        assertNull(coalescer.find(event(null, 2L, 2, T0.plusSeconds(150), null, null)));
+
+        // 合并后窗口从最后一次上报算起
+        EventCoalescer.Recent target = coalescer.find(event(null, 1L, 2, T0.plusSeconds(150), null, null));
+        coalescer.onMerged(1L, target, T0.plusSeconds(150));
+        assertEquals(11L, coalescer.find(event(null, 1L, 2, T0.plusSeconds(260), null, null)).getEventId());
+
+        coalescer.forget(1L, target);
+        assertNull(coalescer.find(event(null, 1L, 2, T0.plusSeconds(260), null, null)));
+    }
+
+    @Test
+    void ringKeepsMostRecentlySeenEvents() {
+        coalescer.onEventsSaved(List.of(
+                event(10L, 1L, 0, T0, null, null),
+                event(11L, 1L, 1, T0.plusSeconds(10), null, null),
+                event(12L, 1L, 2, T0.plusSeconds(20), null, null)));
+
+        assertNull(coalescer.find(event(null, 1L, 0, T0.plusSeconds(30), null, null)));
+        assertEquals(11L, coalescer.find(event(null, 1L, 1, T0.plusSeconds(30), null, null)).getEventId());
+        assertEquals(12L, coalescer.find(event(null, 1L, 2, T0.plusSeconds(30), null, null)).getEventId());
+    }
+
+    private static Event event(Long id, Long userId, int eventType, LocalDateTime timestamp, String imageUrl, String question) {
+        return new Event()
+                .setId(id)
+                .setUserId(userId)
+                .setEventType(eventType)
+                .setTimestamp(timestamp)
+                .setImageUrl(imageUrl)
+                .setDialog(question == null ? null : List.of(new ChatDialog(question, "已通知紧急联系人")))
+                .setRepeatCount(1);
+    }
+}
@@ -0,0 +1,140 @@
+package com.falldetection.backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.falldetection.backend.config.EventIngestConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.entity.Event;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 每个用例重新打开日志目录来模拟重启
+ */
+class EventIngestJournalTests {
+
+    @TempDir
+    Path dir;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private EventIngestConfig config;
+    private EventIngestJournal journal;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        config = new EventIngestConfig();
+        config.setMode("async");
+        config.setJournalDir(dir.toString());
+        journal = reopen();
+    }
+
+    @AfterEach
+    void tearDown() {
+        journal.close();
+    }
+
+    @Test
+    void uncommittedEventsAreRecoveredAfterRestart() throws IOException {
+        long first = journal.append(event(1L, 0));
+        long second = journal.append(event(2L, 2));
+        long third = journal.append(event(3L, 1));
+        journal.commit(List.of(first, third));
+
+        journal = reopen();
+        List<EventIngestJournal.Entry> recovered = journal.takeRecovered();
+        assertEquals(List.of(second), seqs(recovered));
+        Event event = recovered.get(0).getEvent();
+        assertEquals(2L, event.getUserId());
+        assertEquals(2, event.getEventType());
+        assertEquals(LocalDateTime.of(2024, 5, 1, 8, 30, 15), event.getTimestamp());
+        assertEquals("救命", event.getDialog().get(0).getQuestion());
+        assertTrue(journal.takeRecovered().isEmpty());
+
+        // 新事件的序号接着上次的往后排
+        assertTrue(journal.append(event(4L, 0)) > third);
+    }
+
+    @Test
+    void truncatedTailIsIgnored() throws IOException {
+        long seq = journal.append(event(1L, 0));
+        journal.close();
+        try (Stream<Path> files = Files.list(dir)) {
+            Path segment = files.filter(file -> file.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow();
+            Files.writeString(segment, "{\"seq\":99,\"event\":{\"userId\"", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        }
+
+        journal = reopen();
+        assertEquals(List.of(seq), seqs(journal.takeRecovered()));
+    }
+
+    @Test
+    void fullyCommittedSegmentsAreDeleted() throws IOException {
+        config.setJournalSegmentBytes(1L);
+        for (int i = 0; i < 5; i++) {
+            long seq = journal.append(event(1L, 0));
+            journal.commit(List.of(seq));
+        }
+        long open = journal.append(event(1L, 0));
+        journal.commit(List.of(journal.append(event(1L, 0))));
+
+        assertEquals(2, segmentCount());
+        journal = reopen();
+        assertEquals(List.of(open), seqs(journal.takeRecovered()));
+    }
+
+    @Test
+    void parkedEventsAreKeptAsideAndNotReplayed() throws IOException {
+        long seq = journal.append(event(7L, 1));
+        journal.park(new EventIngestJournal.Entry(seq, event(7L, 1)), new IllegalStateException("bad row"));
+
+        List<String> parked = Files.readAllLines(dir.resolve("parked.log"));
+        assertEquals(1, parked.size());
+        assertTrue(parked.get(0).contains("bad row"));
+        journal = reopen();
+        assertTrue(journal.takeRecovered().isEmpty());
+    }
+
+    private EventIngestJournal reopen() throws IOException {
+        if (journal != null) {
+            journal.close();
+        }
+        EventIngestJournal reopened = new EventIngestJournal(config, objectMapper);
+        reopened.load();
+        return reopened;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).count();
+        }
+    }
+
+    private static List<Long> seqs(List<EventIngestJournal.Entry> entries) {
+        return entries.stream().map(EventIngestJournal.Entry::getSeq).collect(Collectors.toList());
+    }
+
+    private static Event event(Long userId, int eventType) {
+        return new Event()
+                .setUserId(userId)
+                .setTimestamp(LocalDateTime.of(2024, 5, 1, 8, 30, 15))
+                .setEventType(eventType)
+                .setDialog(List.of(new ChatDialog("救命", "已通知紧急联系人")))
+                .setRepeatCount(1);
+    }
+}
@@ -0,0 +1,211 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.EventSearchConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.dto.EventSearchDTO;
+import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.mapper.EventMapper;
+import com.falldetection.backend.mapper.EventStatsMapper;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 每个用例重新打开索引目录来模拟重启，fall_events和归档用mock代替
+ */
+class EventSearchIndexTests {
+    private static final Long USER_ID = 1L;
+
+    @TempDir
+    Path dir;
+
+    private final EventMapper eventMapper = mock(EventMapper.class);
+    private final EventStatsMapper eventStatsMapper = mock(EventStatsMapper.class);
+    private final EventArchiveStore eventArchiveStore = mock(EventArchiveStore.class);
+
+    private EventSearchConfig config;
+    private EventSearchIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        config = new EventSearchConfig();
+        config.setDir(dir.toString());
+        // 已有（空的）日志时直接回放，不启动全量构建
+        Files.createFile(dir.resolve("index.log"));
+        index = reopen();
+    }
+
+    @AfterEach
+    void tearDown() {
+        index.close();
+    }
+
+    @Test
+    void tokenizerSplitsWordsAndCjkBigrams() {
+        assertEquals(List.of("cant", "fall", "摔", "倒", "了", "摔倒", "倒了"), EventSearchIndex.tokenize("Can't-fall 摔倒了", false));
+        assertEquals(List.of("cant", "fall", "摔倒", "倒了"), EventSearchIndex.tokenize("Can't FALL 摔倒了", true));
+        assertEquals(List.of("cant", "摔", "倒", "了", "摔倒", "倒了"), EventSearchIndex.tokenize("can’t摔倒了", false));
+        assertEquals(List.of("痛"), EventSearchIndex.tokenize("痛!", true));
+    }
+
+    @Test
+    void bm25RanksRepeatedAndRareTermsHigher() {
+        index.onEventsSaved(List.of(
+                event(1L, "腰疼", "先休息"),
+                event(2L, "腰疼 腰疼 腰疼", "先休息"),
+                event(3L, "头晕", "先休息")));
+
+        List<EventSearchDTO> results = index.search(USER_ID, "腰疼", 10);
+        assertEquals(List.of(2L, 1L), ids(results));
+        assertTrue(results.get(0).getScore() > results.get(1).getScore());
+
+        // 只出现在一个文档中的词比出现在所有文档中的词权重更高
+        List<EventSearchDTO> mixed = index.search(USER_ID, "头晕 休息", 10);
+        assertEquals(3L, mixed.get(0).getId());
+        assertEquals(1, index.search(USER_ID, "腰疼", 1).size());
+        assertTrue(index.search(2L, "腰疼", 10).isEmpty());
+    }
+
+    @Test
+    void journalReplayRestoresUpdatesAndRemovals() throws IOException {
+        index.onEventsSaved(List.of(event(1L, "腰疼", "先休息"), event(2L, "头晕", "先坐下")));
+        // 修改类型时没有dialog，沿用已有文本
+        index.onEventsSaved(List.of(new Event().setId(1L).setUserId(USER_ID).setEventType(1)));
+        index.onEventsRemoved(List.of(new Event().setId(2L).setUserId(USER_ID)));
+
+        index = reopen();
+        List<EventSearchDTO> results = index.search(USER_ID, "腰疼", 10);
+        assertEquals(List.of(1L), ids(results));
+        assertEquals(1, results.get(0).getEventType());
+        assertTrue(index.search(USER_ID, "头晕", 10).isEmpty());
+    }
+
+    @Test
+    void dialogUpdateReplacesTheOldTerms() throws IOException {
+        index.onEventsSaved(List.of(event(1L, "腰疼", "先休息"), event(2L, "腰疼", "先坐下")));
+        index.onEventsSaved(List.of(event(1L, "头晕", "先坐下")));
+
+        for (EventSearchIndex opened : List.of(index, reopen())) {
+            assertEquals(List.of(2L), ids(opened.search(USER_ID, "腰疼", 10)));
+            assertEquals(List.of(1L), ids(opened.search(USER_ID, "头晕", 10)));
+            assertTrue(opened.search(USER_ID, "休息", 10).isEmpty());
+        }
+    }
+
+    @Test
+    void truncatedJournalTailIsIgnored() throws IOException {
+        index.onEventsSaved(List.of(event(1L, "腰疼", "先休息")));
+        index.close();
+        Files.write(dir.resolve("index.log"), new byte[]{1, 0, 0, 0}, StandardOpenOption.APPEND);
+
+        index = reopen();
+        assertEquals(List.of(1L), ids(index.search(USER_ID, "腰疼", 10)));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void updatesDuringBuildAreReplayedOnTopOfIt() throws Exception {
+        index.close();
+        Files.delete(dir.resolve("index.log"));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Cursor<Event> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenAnswer(invocation -> {
+            reading.countDown();
+            release.await(10, TimeUnit.SECONDS);
+            return List.of(event(1L, "腰疼", "先休息"), event(2L, "头晕", "先坐下")).iterator();
+        });
+        doCallRealMethod().when(cursor).forEach(any());
+        when(eventStatsMapper.selectEventUserIds()).thenReturn(List.of(USER_ID));
+        when(eventMapper.streamByUser(eq(USER_ID), any())).thenReturn(cursor);
+
+        index = reopen();
+        assertTrue(reading.await(10, TimeUnit.SECONDS));
+        index.onEventsSaved(List.of(new Event().setId(1L).setUserId(USER_ID).setEventType(2)));
+        index.onEventsRemoved(List.of(new Event().setId(2L).setUserId(USER_ID)));
+        release.countDown();
+        for (int i = 0; i < 100 && !Files.exists(dir.resolve("index.log")); i++) {
+            Thread.sleep(50);
+        }
+
+        for (EventSearchIndex opened : List.of(index, reopen())) {
+            List<EventSearchDTO> results = opened.search(USER_ID, "腰疼", 10);
+            assertEquals(List.of(1L), ids(results));
+            assertEquals(2, results.get(0).getEventType());
+            assertTrue(opened.search(USER_ID, "头晕", 10).isEmpty());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void failedBuildIsRetried() throws Exception {
+        index.close();
+        Files.delete(dir.resolve("index.log"));
+        config.setBuildRetrySeconds(0L);
+        Cursor<Event> cursor = mock(Cursor.class);
+        when(cursor.iterator()).thenAnswer(invocation -> List.of(event(1L, "腰疼", "先休息")).iterator());
+        doCallRealMethod().when(cursor).forEach(any());
+        when(eventStatsMapper.selectEventUserIds())
+                .thenThrow(new IllegalStateException("数据库不可用"))
+                .thenReturn(List.of(USER_ID));
+        when(eventMapper.streamByUser(eq(USER_ID), any())).thenReturn(cursor);
+
+        index = reopen();
+        for (int i = 0; i < 100 && !Files.exists(dir.resolve("index.log")); i++) {
+            Thread.sleep(50);
+        }
+
+        assertEquals(List.of(1L), ids(index.search(USER_ID, "腰疼", 10)));
+        assertEquals(List.of(1L), ids(reopen().search(USER_ID, "腰疼", 10)));
+    }
+
+    private EventSearchIndex reopen() {
+        if (index != null) {
+            index.close();
+        }
+        EventSearchIndex reopened = new EventSearchIndex();
+        ReflectionTestUtils.setField(reopened, "config", config);
+        ReflectionTestUtils.setField(reopened, "eventMapper", eventMapper);
+        ReflectionTestUtils.setField(reopened, "eventStatsMapper", eventStatsMapper);
+        ReflectionTestUtils.setField(reopened, "eventArchiveStore", eventArchiveStore);
+        ReflectionTestUtils.setField(reopened, "transactionTemplate", new TransactionTemplate(mock(PlatformTransactionManager.class)));
+        reopened.start();
+        return reopened;
+    }
+
+    private static Event event(Long id, String question, String answer) {
+        return new Event()
+                .setId(id)
+                .setUserId(USER_ID)
+                .setTimestamp(LocalDateTime.of(2024, 5, 1, 8, 30, 15))
+                .setEventType(0)
+                .setDialog(List.of(new ChatDialog(question, answer)));
+    }
+
+    private static List<Long> ids(List<EventSearchDTO> results) {
+        return results.stream().map(EventSearchDTO::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,102 @@
+package com.falldetection.backend.service;
+
+import com.falldetection.backend.config.ChatSessionConfig;
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.model.QwenStreamingChatModel;
+import com.falldetection.backend.service.impl.ChatServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class MemoryChatSessionRepositoryTests {
+    // 会话128 + 每轮96 + 每个字符2
+    private static final long SESSION_BYTES = 128 + 96 + 2 * (turn().getQuestion().length() + turn().getAnswer().length());
+
+    private final ChatSessionConfig config = new ChatSessionConfig();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<String> evicted = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        config.setMaxSessions(2);
+    }
+
+    @Test
+    void leastRecentlyUsedSessionIsEvictedOverTheCountLimit() {
+        MemoryChatSessionRepository repository = repository();
+        repository.appendTurn("a", turn());
+        repository.appendTurn("b", turn());
+        repository.getTurns("a");
+        repository.appendTurn("c", turn());
+
+        assertEquals(List.of("b:COUNT:1"), evicted);
+        assertEquals(1, repository.getTurns("a").size());
+        assertTrue(repository.getTurns("b").isEmpty());
+        assertEquals(2, meterRegistry.get("chat.session.live").gauge().value());
+        assertEquals(1, meterRegistry.get("chat.session.evictions").tag("cause", "count").counter().count());
+    }
+
+    @Test
+    void sessionsAreEvictedOverTheByteBudget() {
+        config.setMaxSessions(100);
+        config.setMaxBytes(2 * SESSION_BYTES + 1);
+        MemoryChatSessionRepository repository = repository();
+        repository.appendTurn("a", turn());
+        repository.appendTurn("b", turn());
+        assertEquals(2 * SESSION_BYTES, repository.retainedBytes());
+
+        repository.appendTurn("c", turn());
+
+        assertEquals(List.of("a:SIZE:1"), evicted);
+        assertEquals(2 * SESSION_BYTES, repository.retainedBytes());
+        assertEquals(2 * SESSION_BYTES, meterRegistry.get("chat.session.bytes").gauge().value());
+    }
+
+    @Test
+    void idleSessionsExpire() throws InterruptedException {
+        config.setIdleTtlSeconds(0L);
+        MemoryChatSessionRepository repository = repository();
+        repository.appendTurn("a", turn());
+        repository.appendTurn("b", turn());
+        Thread.sleep(5);
+
+        assertTrue(repository.getTurns("a").isEmpty());
+        repository.evictExpired();
+
+        assertEquals(List.of("a:EXPIRED:1", "b:EXPIRED:1"), evicted);
+        assertEquals(0, repository.size());
+        assertEquals(0, repository.retainedBytes());
+    }
+
+    @Test
+    void evictedSessionsDropTheirSummary() {
+        MemoryChatSessionRepository repository = repository();
+        ChatContextManager chatContextManager = mock(ChatContextManager.class);
+        new ChatServiceImpl(mock(QwenStreamingChatModel.class), repository, chatContextManager, mock(ChatResponseCache.class));
+
+        repository.appendTurn("a", turn());
+        repository.appendTurn("b", turn());
+        repository.appendTurn("c", turn());
+
+        verify(chatContextManager).evict("a");
+    }
+
+    private MemoryChatSessionRepository repository() {
+        MemoryChatSessionRepository repository = new MemoryChatSessionRepository(config, meterRegistry);
+        // 监听器里的异常会被捕获，只记录下来由测试断言
+        repository.addEvictionListener((sessionId, turns, cause) -> evicted.add(sessionId + ":" + cause + ":" + turns.size()));
+        return repository;
+    }
+
+    private static ChatDialog turn() {
+        return new ChatDialog("我刚才摔倒了，腰有点疼", "请先坐下休息，不要急着起身");
+    }
+}
@@ -0,0 +1,88 @@
+package com.falldetection.backend.service.impl;
+
+import com.falldetection.backend.config.DashboardConfig;
+import com.falldetection.backend.dto.DashboardDTO;
+import com.falldetection.backend.dto.Result;
+import com.falldetection.backend.dto.UserDTO;
+import com.falldetection.backend.service.DashboardCache;
+import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.service.IUserService;
+import com.falldetection.backend.utils.UserHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DashboardServiceImplTests {
+
+    private final IUserService userService = mock(IUserService.class);
+    private final IEventService eventService = mock(IEventService.class);
+
+    private ThreadPoolTaskExecutor executor;
+    private DashboardServiceImpl dashboardService;
+
+    @BeforeEach
+    void setUp() {
+        DashboardConfig config = new DashboardConfig();
+        config.setBudgetMs(200L);
+        config.setPoolSize(1);
+        executor = config.dashboardExecutor();
+        executor.initialize();
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        dashboardService = new DashboardServiceImpl(meterRegistry);
+        ReflectionTestUtils.setField(dashboardService, "userService", userService);
+        ReflectionTestUtils.setField(dashboardService, "eventService", eventService);
+        ReflectionTestUtils.setField(dashboardService, "dashboardCache", new DashboardCache(config, meterRegistry));
+        ReflectionTestUtils.setField(dashboardService, "config", config);
+        ReflectionTestUtils.setField(dashboardService, "dashboardExecutor", executor);
+
+        UserDTO user = new UserDTO();
+        user.setId(1L);
+        UserHolder.saveUser(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserHolder.removeUser();
+        executor.shutdown();
+    }
+
+    @Test
+    void timedOutSectionsAreCancelledAndFreeThePool() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        when(userService.me()).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(10_000);
+            } catch (InterruptedException e) {
+                interrupted.countDown();
+            }
+            return Result.ok("late");
+        });
+        when(eventService.getEventStats()).thenReturn(Result.ok("stats"));
+        when(eventService.getEventList(any(), any())).thenReturn(Result.ok("recent"));
+
+        DashboardDTO dashboard = (DashboardDTO) dashboardService.getDashboard().getData();
+
+        // 只有一个线程：user超时后被中断，线程才能腾出来；排在后面的部分取决于剩余预算
+        assertEquals("user", dashboard.getMissing().get(0));
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+
+        doReturn(Result.ok("user")).when(userService).me();
+        DashboardDTO next = (DashboardDTO) dashboardService.getDashboard().getData();
+        assertTrue(next.getMissing().isEmpty());
+        assertEquals("user", next.getUser());
+    }
+}
@@ -0,0 +1,119 @@
+package com.falldetection.backend.service.impl;
+
+import com.falldetection.backend.EdgeProfileTestSupport;
+import com.falldetection.backend.dto.EventDTO;
+import com.falldetection.backend.dto.Result;
+import com.falldetection.backend.dto.UserDTO;
+import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.utils.EventCursor;
+import com.falldetection.backend.utils.SystemConstant;
+import com.falldetection.backend.utils.UserHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 深分页时游标分页与OFFSET分页的对比
+ * 行数由 -Dbenchmark.rows 指定（默认30万），数据写入edge配置的SQLite库；
+ * 断言两种方式返回同一页，且游标分页至少快speedup倍
+ */
+@Tag("benchmark")
+class EventListPaginationBenchmarkTests extends EdgeProfileTestSupport {
+    private static final long USER_ID = 1_000_001L;
+    private static final int PAGE_SIZE = SystemConstant.MAX_PAGE_SIZE;
+    private static final int ROUNDS = 15;
+    private static final double MIN_SPEEDUP = 5;
+    private static final DateTimeFormatter FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss.SSS");
+
+    @Autowired
+    private IEventService eventService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private int rows;
+
+    @BeforeEach
+    void setUp() {
+        rows = Integer.getInteger("benchmark.rows", 300_000);
+        Integer existing = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM fall_events WHERE user_id = ?", Integer.class, USER_ID);
+        if (existing == null || existing < rows) {
+            jdbcTemplate.update("DELETE FROM fall_events WHERE user_id = ?", USER_ID);
+            // 时间落在归档hot-days之内，避免被归档任务移出热表
+            LocalDateTime base = LocalDateTime.now().minusSeconds(rows * 10L + 3600);
+            List<Object[]> args = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                args.add(new Object[]{USER_ID, base.plusSeconds(i * 10L).format(FORMAT), i % 3});
+            }
+            jdbcTemplate.batchUpdate(
+                    "INSERT INTO fall_events (user_id, timestamp, event_type, repeat_count) VALUES (?, ?, ?, 1)", args);
+        }
+        UserDTO user = new UserDTO();
+        user.setId(USER_ID);
+        UserHolder.saveUser(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserHolder.removeUser();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void cursorPageIsFasterThanOffsetPageAtDepth() {
+        int page = rows / PAGE_SIZE - 1;
+        // 目标页前一条记录的位置作为游标
+        Map<String, Object> anchor = jdbcTemplate.queryForMap(
+                "SELECT id, timestamp FROM fall_events WHERE user_id = ? ORDER BY timestamp DESC, id DESC LIMIT 1 OFFSET ?",
+                USER_ID, (page - 1) * PAGE_SIZE - 1);
+        String cursor = new EventCursor(LocalDateTime.parse(anchor.get("timestamp").toString().replace(' ', 'T')),
+                ((Number) anchor.get("id")).longValue()).encode();
+
+        Supplier<Result> offset = () -> eventService.getEventList(page, PAGE_SIZE);
+        Supplier<Result> keyset = () -> eventService.getEventListByCursor(cursor, PAGE_SIZE);
+
+        List<Long> offsetIds = ids((Map<String, Object>) offset.get().getData());
+        List<Long> keysetIds = ids((Map<String, Object>) keyset.get().getData());
+        assertEquals(PAGE_SIZE, offsetIds.size());
+        assertEquals(offsetIds, keysetIds);
+
+        long offsetNanos = median(offset);
+        long keysetNanos = median(keyset);
+        System.out.printf("rows=%d page=%d offset=%.2fms cursor=%.2fms speedup=%.1fx%n", rows, page,
+                offsetNanos / 1e6, keysetNanos / 1e6, (double) offsetNanos / keysetNanos);
+        assertTrue(offsetNanos >= keysetNanos * MIN_SPEEDUP,
+                "cursor " + keysetNanos + "ns vs offset " + offsetNanos + "ns");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Long> ids(Map<String, Object> page) {
+        return ((List<EventDTO>) page.get("records")).stream().map(EventDTO::getId).collect(Collectors.toList());
+    }
+
+    private static long median(Supplier<Result> call) {
+        long[] samples = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long start = System.nanoTime();
+            call.get();
+            samples[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(samples);
+        return samples[ROUNDS / 2];
+    }
+}
@@ -0,0 +1,169 @@
+package com.falldetection.backend.service.impl;
+
+import com.falldetection.backend.EdgeProfileTestSupport;
+import com.falldetection.backend.dto.ChatDialog;
+import com.falldetection.backend.dto.EventBatchRequest;
+import com.falldetection.backend.dto.EventSearchDTO;
+import com.falldetection.backend.dto.RawJson;
+import com.falldetection.backend.dto.Result;
+import com.falldetection.backend.dto.UserDTO;
+import com.falldetection.backend.entity.Event;
+import com.falldetection.backend.service.ChatSessionRepository;
+import com.falldetection.backend.service.EventArchiveStore;
+import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.utils.UserHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EventServiceImplTests extends EdgeProfileTestSupport {
+    private static final AtomicLong NEXT_USER_ID = new AtomicLong(3_000_000L);
+
+    @Autowired
+    private IEventService eventService;
+
+    @Autowired
+    private ChatSessionRepository chatSessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventArchiveStore eventArchiveStore;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = NEXT_USER_ID.incrementAndGet();
+        UserDTO user = new UserDTO();
+        user.setId(userId);
+        UserHolder.saveUser(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserHolder.removeUser();
+    }
+
+    @Test
+    void dialogAndDeleteAreScopedByTimestamp() {
+        String sessionId = UUID.randomUUID().toString();
+        chatSessionRepository.appendTurn(sessionId, new ChatDialog("我摔倒了", "已通知家人"));
+        assertTrue(eventService.saveEvent(sessionId, 2, null).getSuccess());
+        Event event = event();
+
+        Result dialog = eventService.getEventDialog(event.getId(), event.getTimestamp());
+        assertEquals("[{\"question\":\"我摔倒了\",\"answer\":\"已通知家人\"}]",
+                new String(((RawJson) dialog.getData()).getBytes(), StandardCharsets.UTF_8));
+        assertTrue(eventService.getEventDialog(event.getId(), null).getSuccess());
+
+        LocalDateTime wrong = event.getTimestamp().minusDays(40);
+        assertFalse(eventService.getEventDialog(event.getId(), wrong).getSuccess());
+        assertFalse(eventService.deleteEvent(event.getId(), wrong).getSuccess());
+        assertTrue(eventService.deleteEvent(event.getId(), event.getTimestamp()).getSuccess());
+        assertEquals(0, count());
+    }
+
+    @Test
+    void repeatedReportsMergeIntoOneRow() {
+        assertTrue(eventService.saveEvent(null, 2, "/img/a.jpg").getSuccess());
+        String sessionId = UUID.randomUUID().toString();
+        chatSessionRepository.appendTurn(sessionId, new ChatDialog("还是起不来", "已拨打120"));
+        assertTrue(eventService.saveEvent(sessionId, 2, "/img/b.jpg").getSuccess());
+
+        assertEquals(1, count());
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT repeat_count, image_url FROM fall_events WHERE user_id = ?", userId);
+        assertEquals(2, ((Number) row.get("repeat_count")).intValue());
+        assertEquals("/img/b.jpg", row.get("image_url"));
+        Event event = event();
+        // 与MySQL DATETIME的精度一致，合并时按主键(id, timestamp)定位
+        assertEquals(0, event.getTimestamp().getNano());
+        assertEquals("[{\"question\":\"还是起不来\",\"answer\":\"已拨打120\"}]",
+                new String(((RawJson) eventService.getEventDialog(event.getId(), event.getTimestamp()).getData()).getBytes(),
+                        StandardCharsets.UTF_8));
+
+        // 不同类型不合并
+        assertTrue(eventService.saveEvent(null, 0, null).getSuccess());
+        assertEquals(2, count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void listTotalComesFromCounters() {
+        for (int eventType = 0; eventType <= 2; eventType++) {
+            eventService.saveEvent(null, eventType, null);
+        }
+        Map<String, Object> page = (Map<String, Object>) eventService.getEventList(2, 2).getData();
+
+        assertEquals(3L, page.get("total"));
+        assertEquals(1, ((List<?>) page.get("records")).size());
+    }
+
+    @Test
+    void purgedEventsLeaveTheSearchIndex() throws InterruptedException {
+        String sessionId = UUID.randomUUID().toString();
+        String term = "purge" + userId;
+        chatSessionRepository.appendTurn(sessionId, new ChatDialog(term, "已通知家人"));
+        eventService.saveEvent(sessionId, 0, null);
+        assertEquals(1, search(term).size());
+
+        // 模拟按保留期删除分区：行直接消失，不经过deleteEvent
+        Event event = event();
+        jdbcTemplate.update("DELETE FROM fall_events WHERE id = ?", event.getId());
+        eventService.onEventsPurged(List.of(event));
+
+        assertTrue(search(term).isEmpty());
+    }
+
+    @Test
+    void eventsBeingArchivedAreReadOnly() {
+        eventService.saveEvent(null, 1, null);
+        Event event = event();
+        // 模拟归档任务已开始：早于cutoff的行正在写入段文件
+        ReflectionTestUtils.setField(eventArchiveStore, "archiving", event.getTimestamp().plusSeconds(1));
+        try {
+            Result deleted = eventService.deleteEvent(event.getId(), event.getTimestamp());
+            assertFalse(deleted.getSuccess());
+            assertTrue(deleted.getErrorMsg().startsWith("事件已归档"));
+            assertFalse(eventService.relabelEvents(new EventBatchRequest(List.of(event.getId()), null, null, 0)).getSuccess());
+            assertFalse(eventService.deleteEvents(new EventBatchRequest(null,
+                    event.getTimestamp().minusHours(1), event.getTimestamp().plusHours(1), null)).getSuccess());
+            assertFalse(eventService.attachEventImage(event.getId(), "/img/c.jpg").getSuccess());
+        } finally {
+            ReflectionTestUtils.setField(eventArchiveStore, "archiving", null);
+        }
+        assertEquals(1, count());
+
+        assertEquals(1L, eventService.relabelEvents(new EventBatchRequest(List.of(event.getId()), null, null, 0)).getData());
+        assertEquals(0, event().getEventType());
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<EventSearchDTO> search(String q) {
+        return (List<EventSearchDTO>) eventService.searchEvents(q, 10).getData();
+    }
+
+    private Event event() {
+        return eventService.query().select("id", "user_id", "timestamp", "event_type").eq("user_id", userId).one();
+    }
+
+    private long count() {
+        return eventService.query().eq("user_id", userId).count();
+    }
+}
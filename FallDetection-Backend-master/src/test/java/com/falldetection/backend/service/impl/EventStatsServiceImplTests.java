@@ -0,0 +1,114 @@
+package com.falldetection.backend.service.impl;
+
+import com.falldetection.backend.EdgeProfileTestSupport;
+import com.falldetection.backend.dto.EventBatchRequest;
+import com.falldetection.backend.dto.EventTimelineDTO;
+import com.falldetection.backend.dto.UserDTO;
+import com.falldetection.backend.entity.EventRollup;
+import com.falldetection.backend.entity.EventStats;
+import com.falldetection.backend.service.IEventService;
+import com.falldetection.backend.service.IEventStatsService;
+import com.falldetection.backend.utils.UserHolder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 写入、修改类型、删除事件后，增量维护的计数和时间桶应与全量重建的结果一致
+ */
+class EventStatsServiceImplTests extends EdgeProfileTestSupport {
+    private static final AtomicLong NEXT_USER_ID = new AtomicLong(2_000_000L);
+
+    @Autowired
+    private IEventService eventService;
+
+    @Autowired
+    private IEventStatsService eventStatsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = NEXT_USER_ID.incrementAndGet();
+        UserDTO user = new UserDTO();
+        user.setId(userId);
+        UserHolder.saveUser(user);
+    }
+
+    @AfterEach
+    void tearDown() {
+        UserHolder.removeUser();
+    }
+
+    @Test
+    void countersFollowSaveRelabelAndDelete() {
+        // 类型各不相同，不会被合并
+        for (int eventType = 0; eventType <= 2; eventType++) {
+            assertTrue(eventService.saveEvent(null, eventType, null).getSuccess());
+        }
+        assertStats(3, 1, 1, 1);
+
+        Long falseAlarm = eventId(1);
+        assertTrue(eventService.relabelEvents(new EventBatchRequest(List.of(falseAlarm), null, null, 0)).getSuccess());
+        assertStats(3, 2, 0, 1);
+
+        assertTrue(eventService.deleteEvent(eventId(2), null).getSuccess());
+        assertStats(2, 2, 0, 0);
+
+        assertTrue(eventService.deleteEvents(new EventBatchRequest(List.of(falseAlarm), null, null, null)).getSuccess());
+        assertStats(1, 1, 0, 0);
+    }
+
+    @Test
+    void rollupsMatchCountersAndSurviveRebuild() {
+        for (int eventType = 0; eventType <= 2; eventType++) {
+            eventService.saveEvent(null, eventType, null);
+        }
+        eventService.deleteEvent(eventId(0), null);
+
+        List<EventTimelineDTO> hours = timeline(EventRollup.GRANULARITY_HOUR);
+        List<EventTimelineDTO> days = timeline(EventRollup.GRANULARITY_DAY);
+        assertEquals(2, sum(hours));
+        assertEquals(2, sum(days));
+
+        // 弄乱计数后全量重建，结果应与增量维护的一致
+        jdbcTemplate.update("UPDATE fall_event_stats SET total = 100, confirmed = 100 WHERE user_id = ?", userId);
+        eventStatsService.rebuildAll();
+        assertStats(2, 0, 1, 1);
+        assertEquals(hours, timeline(EventRollup.GRANULARITY_HOUR));
+        assertEquals(days, timeline(EventRollup.GRANULARITY_DAY));
+    }
+
+    private void assertStats(long total, long confirmed, long falseAlarm, long emergency) {
+        EventStats stats = eventStatsService.getStats(userId);
+        assertEquals(List.of(total, confirmed, falseAlarm, emergency),
+                List.of(stats.getTotal(), stats.getConfirmed(), stats.getFalseAlarm(), stats.getEmergency()));
+        assertEquals(total, sum(timeline(EventRollup.GRANULARITY_HOUR)));
+    }
+
+    private List<EventTimelineDTO> timeline(String granularity) {
+        LocalDateTime now = LocalDateTime.now();
+        return eventStatsService.getTimeline(userId, granularity, now.minusDays(2), now.plusDays(1));
+    }
+
+    private static long sum(List<EventTimelineDTO> buckets) {
+        return buckets.stream().mapToLong(EventTimelineDTO::getTotal).sum();
+    }
+
+    private Long eventId(int eventType) {
+        return jdbcTemplate.queryForObject("SELECT id FROM fall_events WHERE user_id = ? AND event_type = ?",
+                Long.class, userId, eventType);
+    }
+}
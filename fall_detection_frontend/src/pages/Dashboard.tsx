@@ -9,7 +9,7 @@ import {
 } from "@ant-design/icons";
 import { useAuthStore } from "../store/authStore";
 import AIAssistant from "../components/assistant/AIAssistant";
-import { fallApi } from "../services/api";
+import { fallApi, subscribeEventFeed } from "../services/api";
 import { PieChart, Pie, Cell, Legend, Tooltip } from "recharts";
 
 interface EventData {
@@ -36,8 +36,8 @@ const Dashboard = () => {
     const fetchStats = async () => {
       try {
         setLoading(true);
-        const response = await fallApi.getEventStats();
-        const statsData = response.data?.data || {};
+        const response = await fallApi.getDashboard();
+        const statsData = response.data?.data?.stats || {};
         setStats({
           total: statsData.total || 0,
           confirmed: statsData.confirmed || 0,
@@ -51,6 +51,19 @@ const Dashboard = () => {
       }
     };
     fetchStats();
+
+    // 计数变化由服务端推送，不再轮询
+    return subscribeEventFeed((message) => {
+      if (message.type === "stats" && message.stats) {
+        setStats({
+          total: message.stats.total || 0,
+          confirmed: message.stats.confirmed || 0,
+          falseAlarm: message.stats.falseAlarm || 0,
+          emergency: message.stats.emergency || 0,
+        });
+        setLoading(false);
+      }
+    });
   }, []);
 
   // Pie chart data
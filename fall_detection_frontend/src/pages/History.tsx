@@ -1,4 +1,4 @@
-import { useState, useEffect } from "react";
+import { useState, useEffect, useRef, type Key } from "react";
 import {
   Table,
   Button,
@@ -7,10 +7,11 @@ import {
   Modal,
   Typography,
   Descriptions,
+  Select,
 } from "antd";
 import { DeleteOutlined, ExclamationCircleOutlined } from "@ant-design/icons";
 import type { TableProps } from "antd";
-import { fallApi } from "../services/api";
+import { fallApi, subscribeEventFeed } from "../services/api";
 import { useAuthStore } from "../store/authStore";
 
 const { Title, Text } = Typography;
@@ -25,8 +26,9 @@ interface FallEvent {
   userId: number;
   timestamp: string;
   eventType: number; // 0: confirmed, 1: false_alarm, 2: emergency
-  dialog: ChatDialog[];
+  dialog?: ChatDialog[] | null; // 列表接口不返回，查看详情时按需加载
   imageUrl?: string; // 新增
+  repeatCount?: number; // 重复上报被合并的次数
 }
 
 const getStatus = (eventType: number) => {
@@ -46,6 +48,8 @@ const History = () => {
   });
   const [detailModalVisible, setDetailModalVisible] = useState(false);
   const [selectedEvent, setSelectedEvent] = useState<FallEvent | null>(null);
+  const [imageSrc, setImageSrc] = useState<string>();
+  const [selectedRowKeys, setSelectedRowKeys] = useState<Key[]>([]);
   const user = useAuthStore((state) => state.user);
 
   const fetchData = async (page = 1, pageSize = 10) => {
@@ -60,6 +64,7 @@ const History = () => {
       const { records = [], total = 0 } = response.data?.data || {};
       console.log("response:", response.data.data);
       setData(records);
+      setSelectedRowKeys([]);
       setPagination({ current: page, pageSize, total });
       console.log("records:", records);
       console.log("total:", total);
@@ -75,12 +80,72 @@ const History = () => {
     fetchData();
   }, []);
 
-  const handleViewDetail = (record: FallEvent) => {
+  // 有事件新增/删除或需要重新同步时刷新当前页
+  // 批量操作会连续推送多条消息，合并为一次刷新
+  const pageRef = useRef(pagination);
+  pageRef.current = pagination;
+  const refreshTimer = useRef<ReturnType<typeof setTimeout>>();
+  useEffect(() => {
+    const unsubscribe = subscribeEventFeed((message) => {
+      if (message.type !== "stats") {
+        clearTimeout(refreshTimer.current);
+        refreshTimer.current = setTimeout(
+          () => fetchData(pageRef.current.current, pageRef.current.pageSize),
+          300
+        );
+      }
+    });
+    return () => {
+      clearTimeout(refreshTimer.current);
+      unsubscribe();
+    };
+  }, []);
+
+  // 截图接口需要token，不能直接作为img的src，取回Blob后生成本地URL
+  const selectedEventId = selectedEvent?.id;
+  const selectedImageUrl = selectedEvent?.imageUrl;
+  useEffect(() => {
+    if (!selectedEventId || !selectedImageUrl) {
+      setImageSrc(undefined);
+      return;
+    }
+    let objectUrl: string | undefined;
+    let cancelled = false;
+    fallApi
+      .getEventImage(selectedEventId)
+      .then((response) => {
+        if (!cancelled) {
+          objectUrl = URL.createObjectURL(response.data);
+          setImageSrc(objectUrl);
+        }
+      })
+      .catch((error) => {
+        console.error("Failed to load the screenshot.", error);
+        setImageSrc(undefined);
+      });
+    return () => {
+      cancelled = true;
+      if (objectUrl) {
+        URL.revokeObjectURL(objectUrl);
+      }
+    };
+  }, [selectedEventId, selectedImageUrl]);
+
+  const handleViewDetail = async (record: FallEvent) => {
     setSelectedEvent(record);
     setDetailModalVisible(true);
+    try {
+      const response = await fallApi.getEventDialog(record.id, record.timestamp);
+      const dialog: ChatDialog[] = response.data?.data || [];
+      setSelectedEvent((current) =>
+        current && current.id === record.id ? { ...current, dialog } : current
+      );
+    } catch (error) {
+      console.error("Failed to load the chat history.", error);
+    }
   };
 
-  const handleDelete = (id: number) => {
+  const handleDelete = (id: number, timestamp: string) => {
     Modal.confirm({
       title: "Confirm Deletion",
       icon: <ExclamationCircleOutlined />,
@@ -90,7 +155,7 @@ const History = () => {
       cancelText: "Cancel",
       onOk: async () => {
         try {
-          await fallApi.deleteEvent(id.toString());
+          await fallApi.deleteEvent(id.toString(), timestamp);
           // 删除后判断是否需要跳到上一页
           // 如果当前页只剩一条且不是第一页，删除后自动跳到上一页，否则保持当前页
           const isLastItemOnPage = data.length === 1;
@@ -107,6 +172,41 @@ const History = () => {
     });
   };
 
+  const handleBatchDelete = () => {
+    const ids = selectedRowKeys as number[];
+    Modal.confirm({
+      title: "Confirm Deletion",
+      icon: <ExclamationCircleOutlined />,
+      content: `Are you sure you want to delete ${ids.length} records? This operation cannot be undone.`,
+      okText: "Confirm",
+      cancelText: "Cancel",
+      onOk: async () => {
+        try {
+          await fallApi.deleteEvents(ids);
+          // 整页都被删除且不是第一页时跳到上一页
+          const isWholePage = ids.length >= data.length;
+          const isNotFirstPage = pagination.current > 1;
+          const nextPage =
+            isWholePage && isNotFirstPage
+              ? pagination.current - 1
+              : pagination.current;
+          fetchData(nextPage, pagination.pageSize);
+        } catch (error) {
+          console.error("Failed to delete the records:", error);
+        }
+      },
+    });
+  };
+
+  const handleBatchRelabel = async (eventType: number) => {
+    try {
+      await fallApi.relabelEvents(selectedRowKeys as number[], eventType);
+      fetchData(pagination.current, pagination.pageSize);
+    } catch (error) {
+      console.error("Failed to update the records:", error);
+    }
+  };
+
   const columns: TableProps<FallEvent>["columns"] = [
     {
       title: "Time",
@@ -119,9 +219,16 @@ const History = () => {
       title: "Status",
       dataIndex: "eventType",
       key: "eventType",
-      render: (eventType: number) => {
+      render: (eventType: number, record) => {
         const { color, text } = getStatus(eventType);
-        return <Tag color={color}>{text}</Tag>;
+        return (
+          <Space size={4}>
+            <Tag color={color}>{text}</Tag>
+            {record.repeatCount && record.repeatCount > 1 && (
+              <Tag>×{record.repeatCount}</Tag>
+            )}
+          </Space>
+        );
       },
       filters: [
         { text: "Confirmed", value: 0 },
@@ -130,26 +237,6 @@ const History = () => {
       ],
       onFilter: (value, record) => record.eventType === value,
     },
-    {
-      title: "Description",
-      dataIndex: "dialog",
-      key: "description",
-      ellipsis: true,
-      render: (dialog: ChatDialog[]) => {
-        if (!dialog || dialog.length === 0) return "-";
-        return dialog[0]?.question || "-";
-      },
-    },
-    {
-      title: "AI Response",
-      dataIndex: "dialog",
-      key: "aiResponse",
-      ellipsis: true,
-      render: (dialog: ChatDialog[]) => {
-        if (!dialog || dialog.length === 0) return "-";
-        return dialog[0]?.answer || "-";
-      },
-    },
     {
       title: "Actions",
       key: "action",
@@ -158,7 +245,7 @@ const History = () => {
           <Button type="link" onClick={() => handleViewDetail(record)}>
             View Details
           </Button>
-          <Button type="link" danger onClick={() => handleDelete(record.id)}>
+          <Button type="link" danger onClick={() => handleDelete(record.id, record.timestamp)}>
             <DeleteOutlined /> Delete
           </Button>
         </Space>
@@ -169,7 +256,32 @@ const History = () => {
   return (
     <div style={{ minHeight: "100vh" }}>
       <Title level={2}>Fall Event History Records</Title>
+      <Space style={{ marginBottom: 16 }}>
+        <Button
+          danger
+          disabled={selectedRowKeys.length === 0}
+          onClick={handleBatchDelete}
+        >
+          <DeleteOutlined /> Delete Selected
+        </Button>
+        <Select
+          placeholder="Mark selected as"
+          style={{ width: 180 }}
+          disabled={selectedRowKeys.length === 0}
+          value={null}
+          onChange={(value: number) => handleBatchRelabel(value)}
+          options={[
+            { label: "Confirmed", value: 0 },
+            { label: "False Alarm", value: 1 },
+            { label: "Emergency", value: 2 },
+          ]}
+        />
+      </Space>
       <Table
+        rowSelection={{
+          selectedRowKeys,
+          onChange: (keys) => setSelectedRowKeys(keys),
+        }}
         columns={columns}
         dataSource={data}
         rowKey="id"
@@ -203,10 +315,10 @@ const History = () => {
               </Descriptions.Item>
             </Descriptions>
             {/* 新增：显示摔倒截图 */}
-            {selectedEvent.imageUrl && (
+            {imageSrc && (
               <div style={{ margin: "16px 0", textAlign: "center" }}>
                 <img
-                  src={`http://localhost:5000${selectedEvent.imageUrl}`}
+                  src={imageSrc}
                   alt="Fall Screenshot"
                   style={{
                     maxWidth: 400,
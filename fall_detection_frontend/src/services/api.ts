@@ -123,9 +123,39 @@ export const fallApi = {
     return api.get(`/event/${id}`);
   },
 
-  // 删除跌倒事件
-  deleteEvent: async (id: string) => {
-    return api.delete(`/event/delete/${id}`);
+  // 按需获取跌倒事件的问答记录，timestamp为列表中的事件时间，后端据此只查询对应分区
+  getEventDialog: async (id: number, timestamp?: string) => {
+    return api.get(`/event/${id}/dialog`, { params: { timestamp } });
+  },
+
+  // 获取跌倒事件截图（需要带token，返回Blob）
+  getEventImage: async (id: number) => {
+    return api.get<Blob>(`/event/${id}/image`, { responseType: 'blob' });
+  },
+
+  // 上传跌倒事件截图，传入eventId时同时关联到该事件
+  uploadEventImage: async (file: Blob, eventId?: number) => {
+    const form = new FormData();
+    form.append('file', file);
+    if (eventId !== undefined) {
+      form.append('eventId', String(eventId));
+    }
+    return api.post('/event/image', form);
+  },
+
+  // 删除跌倒事件，timestamp为列表中的事件时间，后端据此只查询对应分区
+  deleteEvent: async (id: string, timestamp?: string) => {
+    return api.delete(`/event/delete/${id}`, { params: { timestamp } });
+  },
+
+  // 批量删除跌倒事件
+  deleteEvents: async (ids: number[]) => {
+    return api.post('/event/batch/delete', { ids });
+  },
+
+  // 批量修改跌倒事件类型
+  relabelEvents: async (ids: number[], eventType: number) => {
+    return api.post('/event/batch/relabel', { ids, eventType });
   },
 
   // 更新跌倒事件状态
@@ -138,6 +168,11 @@ export const fallApi = {
     return api.get('/event/stats');
   },
 
+  // 仪表盘首屏数据：当前用户、事件计数和最近事件，一次请求返回
+  getDashboard: async () => {
+    return api.get('/dashboard');
+  },
+
   sendEmergencyEmail: async (email: string, eventId: string) => {
     return api.post('/fall/send-emergency-email', { email, eventId });
   },
@@ -367,6 +402,72 @@ export const streamChatJson = async (
   }
 };
 
+export interface EventFeedMessage {
+  type: 'saved' | 'removed' | 'stats' | 'resync';
+  event?: { id: number; userId: number; timestamp: string; eventType: number };
+  stats?: { total: number; confirmed: number; falseAlarm: number; emergency: number };
+}
+
+/**
+ * 订阅当前用户的事件推送（SSE），断开或收到resync后自动重连
+ * @param onMessage 收到消息的回调
+ * @returns 取消订阅的函数
+ */
+export const subscribeEventFeed = (onMessage: (message: EventFeedMessage) => void) => {
+  const controller = new AbortController();
+
+  const connect = async () => {
+    while (!controller.signal.aborted) {
+      try {
+        const authStorage = localStorage.getItem('auth-storage');
+        let token = '';
+        if (authStorage) {
+          try {
+            token = JSON.parse(authStorage).state?.token || '';
+          } catch {
+            // 解析失败，token 为空
+          }
+        }
+        const response = await fetch('http://localhost:8083/api/event/feed', {
+          headers: {
+            'Accept': 'text/event-stream',
+            'Authorization': `Bearer ${token}`,
+          },
+          signal: controller.signal,
+        });
+        const reader = response.body?.getReader();
+        if (!response.ok || !reader) throw new Error(`HTTP error! status: ${response.status}`);
+        const decoder = new TextDecoder();
+        let buffer = '';
+        while (true) {
+          const { done, value } = await reader.read();
+          if (done) break;
+          buffer += decoder.decode(value, { stream: true });
+          const lines = buffer.split('\n');
+          buffer = lines.pop() || '';
+          for (const line of lines) {
+            if (line.startsWith('data:')) {
+              try {
+                onMessage(JSON.parse(line.substring(5)));
+              } catch {
+                // 忽略解析失败
+              }
+            }
+          }
+        }
+      } catch (error) {
+        if (controller.signal.aborted) return;
+        console.error('Event feed disconnected:', error);
+      }
+      // 稍后重连
+      await new Promise((resolve) => setTimeout(resolve, 3000));
+    }
+  };
+
+  connect();
+  return () => controller.abort();
+};
+
 // 音频相关API
 export const audioApi = {
   // 处理音频（已废弃，改用WebSocket）
@@ -0,0 +1,26 @@
+DROP TABLE IF EXISTS `fall_event_rollup`;
+
+CREATE TABLE `fall_event_rollup` (
+    `user_id` bigint NOT NULL,
+    `granularity` char(1) COLLATE utf8mb4_unicode_ci NOT NULL COMMENT 'H: 小时, D: 天',
+    `bucket_start` datetime NOT NULL COMMENT '时间桶起点',
+    `total` bigint NOT NULL DEFAULT 0,
+    `confirmed` bigint NOT NULL DEFAULT 0 COMMENT 'event_type = 0',
+    `false_alarm` bigint NOT NULL DEFAULT 0 COMMENT 'event_type = 1',
+    `emergency` bigint NOT NULL DEFAULT 0 COMMENT 'event_type = 2',
+    PRIMARY KEY (`user_id`, `granularity`, `bucket_start`)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
+
+-- 从已有事件初始化汇总
+INSERT INTO `fall_event_rollup` (`user_id`, `granularity`, `bucket_start`, `total`, `confirmed`, `false_alarm`, `emergency`)
+SELECT `user_id`, 'H', DATE_FORMAT(`timestamp`, '%Y-%m-%d %H:00:00'), COUNT(*),
+       COALESCE(SUM(`event_type` = 0), 0), COALESCE(SUM(`event_type` = 1), 0), COALESCE(SUM(`event_type` = 2), 0)
+FROM `fall_events`
+WHERE `user_id` IS NOT NULL AND `timestamp` IS NOT NULL
+GROUP BY `user_id`, DATE_FORMAT(`timestamp`, '%Y-%m-%d %H:00:00')
+UNION ALL
+SELECT `user_id`, 'D', DATE(`timestamp`), COUNT(*),
+       COALESCE(SUM(`event_type` = 0), 0), COALESCE(SUM(`event_type` = 1), 0), COALESCE(SUM(`event_type` = 2), 0)
+FROM `fall_events`
+WHERE `user_id` IS NOT NULL AND `timestamp` IS NOT NULL
+GROUP BY `user_id`, DATE(`timestamp`);
@@ -0,0 +1,18 @@
+DROP TABLE IF EXISTS `fall_event_stats`;
+
+CREATE TABLE `fall_event_stats` (
+    `user_id` bigint NOT NULL,
+    `total` bigint NOT NULL DEFAULT 0,
+    `confirmed` bigint NOT NULL DEFAULT 0 COMMENT 'event_type = 0',
+    `false_alarm` bigint NOT NULL DEFAULT 0 COMMENT 'event_type = 1',
+    `emergency` bigint NOT NULL DEFAULT 0 COMMENT 'event_type = 2',
+    PRIMARY KEY (`user_id`)
+) ENGINE = InnoDB DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
+
+-- 从已有事件初始化计数
+INSERT INTO `fall_event_stats` (`user_id`, `total`, `confirmed`, `false_alarm`, `emergency`)
+SELECT `user_id`, COUNT(*), COALESCE(SUM(`event_type` = 0), 0), COALESCE(SUM(`event_type` = 1), 0),
+       COALESCE(SUM(`event_type` = 2), 0)
+FROM `fall_events`
+WHERE `user_id` IS NOT NULL
+GROUP BY `user_id`;
@@ -3,11 +3,36 @@ DROP TABLE IF EXISTS `fall_events`;
 CREATE TABLE `fall_events` (
     `id` bigint NOT NULL AUTO_INCREMENT,
     `user_id` bigint DEFAULT NULL,
-    `timestamp` datetime DEFAULT NULL,
+    `timestamp` datetime NOT NULL,
     `event_type` int DEFAULT NULL COMMENT '事件类型（0:confirm, 1:false_alarm, 2:emergency）',
-    `dialog` text COLLATE utf8mb4_unicode_ci COMMENT '记录用户和ai针对此次事件的问答记录',
+    `dialog` mediumblob COMMENT '记录用户和ai针对此次事件的问答记录（压缩二进制，旧数据为JSON文本）',
     `image_url` varchar(255) COLLATE utf8mb4_unicode_ci DEFAULT NULL,
-    PRIMARY KEY (`id`),
-    KEY `idx_user_id` (`user_id`),
+    `repeat_count` int NOT NULL DEFAULT 1 COMMENT '短时间内重复上报被合并到此记录的次数（包括自身）',
+    PRIMARY KEY (`id`, `timestamp`),
+    KEY `idx_user_timestamp_id` (`user_id`, `timestamp`, `id`),
     KEY `idx_timestamp` (`timestamp`)
-) ENGINE = InnoDB AUTO_INCREMENT = 132 DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci;
\ No newline at end of file
+) ENGINE = InnoDB AUTO_INCREMENT = 132 DEFAULT CHARSET = utf8mb4 COLLATE = utf8mb4_unicode_ci
+PARTITION BY RANGE COLUMNS (`timestamp`) (
+    PARTITION p_history VALUES LESS THAN ('2025-07-01 00:00:00'),
+    PARTITION p202507 VALUES LESS THAN ('2025-08-01 00:00:00'),
+    PARTITION p_future VALUES LESS THAN (MAXVALUE)
+);
+-- 之后的月份分区（pYYYYMM）由 EventPartitionMaintenanceJob 自动创建
+
+-- 已有库迁移：游标分页使用的联合索引（取代 idx_user_id）
+-- ALTER TABLE `fall_events` ADD KEY `idx_user_timestamp_id` (`user_id`, `timestamp`, `id`), DROP KEY `idx_user_id`;
+
+-- 已有库迁移：dialog改为压缩二进制存储，原有JSON文本按UTF-8字节保留，读取时自动识别
+-- ALTER TABLE `fall_events` MODIFY `dialog` mediumblob COMMENT '记录用户和ai针对此次事件的问答记录（压缩二进制，旧数据为JSON文本）';
+
+-- 已有库迁移：按timestamp按月分区，分区键必须包含在主键中
+-- UPDATE `fall_events` SET `timestamp` = NOW() WHERE `timestamp` IS NULL;
+-- ALTER TABLE `fall_events` MODIFY `timestamp` datetime NOT NULL, DROP PRIMARY KEY, ADD PRIMARY KEY (`id`, `timestamp`);
+-- ALTER TABLE `fall_events` PARTITION BY RANGE COLUMNS (`timestamp`) (
+--     PARTITION p_history VALUES LESS THAN ('2025-07-01 00:00:00'),
+--     PARTITION p202507 VALUES LESS THAN ('2025-08-01 00:00:00'),
+--     PARTITION p_future VALUES LESS THAN (MAXVALUE)
+-- );
+
+-- 已有库迁移：重复上报合并计数
+-- ALTER TABLE `fall_events` ADD `repeat_count` int NOT NULL DEFAULT 1 COMMENT '短时间内重复上报被合并到此记录的次数（包括自身）' AFTER `image_url`;